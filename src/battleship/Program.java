@@ -1,14 +1,83 @@
 package battleship;
 
+import battleship.bench.Benchmarks;
+import battleship.engine.BatchRunner;
+import battleship.load.LoadGenerator;
+import battleship.metrics.MetricsRegistry;
 import battleship.models.Game;
+import battleship.models.GameScript;
+import battleship.server.GameServer;
+import battleship.storage.CorpusWriter;
+import battleship.storage.GameReplay;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 public class Program {
 
     public static void main(String[] args) {
-        Game game = new Game(args);
+        if (args.length > 1 && Objects.equals(args[0], "--metrics")) {
+            try {
+                long seconds = Long.parseLong(args[1]);
+                MetricsRegistry.getDefault().registerMBean();
+                // Игра пишет в стандартный вывод, поэтому метрики выводятся в поток ошибок
+                MetricsRegistry.getDefault().startDump(System.err, seconds);
+            } catch (Exception ex) {
+                System.out.println("Usage: --metrics seconds [mode and its parameters]");
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--batch")) {
+            BatchRunner.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--bench")) {
+            Benchmarks.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--replay")) {
+            GameReplay.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--corpus")) {
+            CorpusWriter.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--server")) {
+            GameServer.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--script")) {
+            GameScript.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && Objects.equals(args[0], "--load")) {
+            LoadGenerator.runFromCommandLine(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        boolean isAnsiDiffModeEnabled = false;
+        long seed = new SplittableRandom().nextLong();
+        while (args.length > 0 && (Objects.equals(args[0], "--ansi") || Objects.equals(args[0], "--seed"))) {
+            if (Objects.equals(args[0], "--ansi")) {
+                isAnsiDiffModeEnabled = true;
+                args = Arrays.copyOfRange(args, 1, args.length);
+                continue;
+            }
+            try {
+                seed = Long.parseLong(args[1]);
+            } catch (Exception ex) {
+                System.out.println("Usage: [--ansi] [--seed seed] [game parameters]");
+                return;
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        Game game = new Game(args, seed);
+        game.setAnsiDiffModeEnabled(isAnsiDiffModeEnabled);
         game.start();
 
-        while (true) {
+        while (!game.isFinished()) {
             game.readCommand();
         }
     }
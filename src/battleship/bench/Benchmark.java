@@ -0,0 +1,105 @@
+package battleship.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Small benchmark harness.
+ * An operation is warmed up for a while, then it is repeated in batches during the measurement time.
+ * Time per operation, allocated bytes per operation and garbage collections are reported.
+ */
+public class Benchmark {
+    /**
+     * Operation to measure.
+     * The returned value is consumed, so that the JIT compiler can't throw the work away.
+     */
+    public interface Operation {
+        long run();
+    }
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final com.sun.management.ThreadMXBean threads;
+    private long sink;
+
+    /**
+     * Benchmark constructor.
+     *
+     * @param warmupMillis  duration of the warmup of every operation.
+     * @param measureMillis duration of the measurement of every operation.
+     */
+    public Benchmark(long warmupMillis, long measureMillis) {
+        this.warmupNanos = warmupMillis * 1_000_000;
+        this.measureNanos = measureMillis * 1_000_000;
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Printing the header of the results table.
+     */
+    public static void printHeader() {
+        System.out.printf("%-48s %14s %14s %12s %8s%n", "benchmark", "ops", "ns/op", "B/op", "gc");
+    }
+
+    /**
+     * Measuring the operation and printing the result.
+     *
+     * @param name name of the benchmark.
+     * @param op   the operation.
+     */
+    public void measure(String name, Operation op) {
+        run(op, warmupNanos);
+        long gcBefore = gcCount();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        long ops = run(op, measureNanos);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        long gc = gcCount() - gcBefore;
+        System.out.printf("%-48s %14d %14.1f %12.1f %8d%n", name, ops,
+                (double) elapsed / ops, (double) allocated / ops, gc);
+    }
+
+    /**
+     * Repeating the operation in batches until the time is over.
+     *
+     * @return the amount of operations.
+     */
+    private long run(Operation op, long nanos) {
+        long ops = 0;
+        int batch = 1;
+        long end = System.nanoTime() + nanos;
+        long now = System.nanoTime();
+        while (now < end) {
+            for (int i = 0; i < batch; i++) {
+                sink += op.run();
+            }
+            ops += batch;
+            long batchNanos = System.nanoTime() - now;
+            now += batchNanos;
+            // Пачка растет, только пока она выполняется быстро, иначе медленная операция затянет замер
+            if (batchNanos < 10_000_000 && batch < 1 << 16) {
+                batch <<= 1;
+            }
+        }
+        return ops;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Getting the consumed results, it is printed at the end to keep the work alive.
+     *
+     * @return the sum of results of operations.
+     */
+    public long getSink() {
+        return sink;
+    }
+}
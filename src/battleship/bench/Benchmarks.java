@@ -0,0 +1,289 @@
+package battleship.bench;
+
+import battleship.engine.EndgameSolver;
+import battleship.engine.GameEngine;
+import battleship.enums.PlacementResult;
+import battleship.enums.ShipType;
+import battleship.models.BattleField;
+import battleship.models.Fleet;
+import battleship.models.FleetConfig;
+import battleship.models.FleetGenerator;
+import battleship.models.Game;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the hot paths: placement, attacks, ship lookup, rendering and the endgame solver.
+ * Results are printed as a table, so numbers before and after a change can be compared.
+ */
+public class Benchmarks {
+    private static final int[] classicAmounts = {1, 1, 2, 3, 4};
+    private static final int[] boardSizes = {10, 50, 200};
+    private static final double[] densities = {0.5, 1.0, 1.2};
+    private static final int[] renderSizes = {10, 100, 300, 500};
+
+    private final Benchmark benchmark;
+    private final String filter;
+    private final SplittableRandom rnd = new SplittableRandom(42);
+
+    private Benchmarks(Benchmark benchmark, String filter) {
+        this.benchmark = benchmark;
+        this.filter = filter;
+    }
+
+    /**
+     * Running benchmarks from the command line.
+     * Optional parameters are a part of the benchmark name to run only matching benchmarks,
+     * warmup and measurement durations of every benchmark in milliseconds.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            String filter = args.length > 0 ? args[0] : "";
+            long warmup = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+            long measure = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+            Benchmark benchmark = new Benchmark(warmup, measure);
+            Benchmark.printHeader();
+            new Benchmarks(benchmark, filter).runAll();
+            System.out.println("sink " + benchmark.getSink());
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect benchmark parameters" : ex.getMessage());
+            System.out.println("Usage: --bench [filter [warmupMillis [measureMillis]]]");
+        }
+    }
+
+    private void runAll() throws Exception {
+        for (int size : boardSizes) {
+            for (double density : densities) {
+                placement(size, density);
+            }
+            generation(size);
+        }
+        for (int size : new int[]{10, 100}) {
+            game(size, false);
+            game(size, true);
+            lookup(size);
+        }
+        commands(false);
+        commands(true);
+        for (int size : renderSizes) {
+            render(size);
+        }
+        // Значения найдены полным перебором всех стратегий
+        endgame("submarine", 10, 10, new int[]{0, 0, 0, 0, 1}, 101 / 2.0);
+        endgame("cruiser", 4, 4, new int[]{0, 0, 1, 0, 0}, 45 / 8.0);
+        endgame("destroyer and submarine", 4, 3, new int[]{0, 0, 0, 1, 1}, 244 / 37.0);
+    }
+
+    /**
+     * Placing a fleet, the amounts of ships grow with the area of the field.
+     * Density 1.0 means the classic fleet 1, 1, 2, 3, 4 for every 100 cells.
+     */
+    private void placement(int size, double density) throws Exception {
+        String name = String.format("placement %dx%d density %.1f", size, size, density);
+        if (!name.contains(filter)) {
+            return;
+        }
+        GameConfig config = createConfig(size, density, 0);
+        benchmark.measure(name, () -> {
+            GameEngine engine = new GameEngine(config, rnd.split());
+            return engine.placeFleet() == PlacementResult.placed ? 1 : 0;
+        });
+    }
+
+    /**
+     * Placing the classic fleet for consecutive seeds by one generator,
+     * the difference with placement shows the cost of creating a new game for every fleet.
+     */
+    private void generation(int size) throws Exception {
+        String name = String.format("fleet generation %dx%d density 1.0", size, size);
+        if (!name.contains(filter)) {
+            return;
+        }
+        FleetGenerator generator = new FleetGenerator(createConfig(size, 1.0, 0));
+        long[] seed = {rnd.nextLong()};
+        benchmark.measure(name, () -> generator.place(seed[0]++) == PlacementResult.placed ? 1 : 0);
+    }
+
+    /**
+     * Playing a whole game: every cell of a fresh field is attacked in random order.
+     * With torpedoes every ship can be sunk by a torpedo.
+     */
+    private void game(int size, boolean torpedoes) throws Exception {
+        String name = String.format("%s, whole game %dx%d", torpedoes ? "torpedo" : "fire", size, size);
+        if (!name.contains(filter)) {
+            return;
+        }
+        GameConfig config = createConfig(size, 1.0, torpedoes ? -1 : 0);
+        int[] order = shuffledCells(size * size);
+        benchmark.measure(name, () -> {
+            GameEngine engine = new GameEngine(config, rnd.split());
+            engine.placeFleet();
+            long shots = 0;
+            for (int i = 0; i < order.length && !engine.isOver(); i++) {
+                int x = order[i] / size;
+                int y = order[i] % size;
+                if (torpedoes) {
+                    engine.torpedo(x, y);
+                } else {
+                    engine.fire(x, y);
+                }
+                shots++;
+            }
+            return shots;
+        });
+    }
+
+    /**
+     * Finding hit ships and checking the end of the game on a placed fleet.
+     */
+    private void lookup(int size) throws Exception {
+        GameEngine engine = new GameEngine(createConfig(size, 1.0, 0), rnd.split());
+        engine.placeFleet();
+        Fleet fleet = engine.getFleet();
+        int cells = 0;
+        for (Ship sh : fleet.getShips()) {
+            cells += sh.getSize();
+        }
+        int[] xs = new int[cells];
+        int[] ys = new int[cells];
+        int n = 0;
+        for (Ship sh : fleet.getShips()) {
+            for (int k = 0; k < sh.getSize(); k++) {
+                xs[n] = sh.getCellX(k);
+                ys[n++] = sh.getCellY(k);
+            }
+        }
+        int[] next = {0};
+        String name = String.format("getHitShip %dx%d", size, size);
+        if (name.contains(filter)) {
+            benchmark.measure(name, () -> {
+                int i = next[0]++ % xs.length;
+                return fleet.getHitShip(xs[i], ys[i]).getSize();
+            });
+        }
+        name = String.format("areAllShipsSunk %dx%d", size, size);
+        if (name.contains(filter)) {
+            benchmark.measure(name, () -> fleet.areAllShipsSunk() ? 1 : 0);
+        }
+    }
+
+    /**
+     * Executing attack commands by the game session, as the server does for every line.
+     * Malformed commands show the cost of rejecting bad input of bots.
+     */
+    private void commands(boolean isMalformed) throws Exception {
+        int size = 100;
+        String name = String.format("%s commands %dx%d", isMalformed ? "malformed attack" : "attack", size, size);
+        if (!name.contains(filter)) {
+            return;
+        }
+        GameConfig config = createConfig(size, 1.0, 0);
+        int[] order = shuffledCells(size * size);
+        String[] lines = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            lines[i] = "attack " + (order[i] / size + 1) + (isMalformed ? "q " : " ") + (order[i] % size + 1);
+        }
+        StringBuilder output = new StringBuilder();
+        Game[] game = {null};
+        int[] next = {lines.length};
+        benchmark.measure(name, () -> {
+            if (next[0] == lines.length || game[0].isFinished()) {
+                GameEngine engine = new GameEngine(config, rnd.split());
+                engine.placeFleet();
+                game[0] = new Game(engine, output);
+                next[0] = 0;
+            }
+            output.setLength(0);
+            game[0].executeCommand(lines[next[0]++]);
+            return output.length();
+        });
+    }
+
+    /**
+     * Rendering a field after attacks at a tenth of its cells.
+     */
+    private void render(int size) throws Exception {
+        GameEngine engine = new GameEngine(createConfig(size, 1.0, 0), rnd.split());
+        engine.placeFleet();
+        int[] order = shuffledCells(size * size);
+        for (int i = 0; i < order.length / 10; i++) {
+            engine.fire(order[i] / size, order[i] % size);
+        }
+        BattleField battleField = engine.getBattleField();
+        String name = String.format("BattleField.toString %dx%d", size, size);
+        if (name.contains(filter)) {
+            benchmark.measure(name, () -> battleField.toString().length());
+        }
+        name = String.format("BattleField.toHackString %dx%d", size, size);
+        if (name.contains(filter)) {
+            benchmark.measure(name, () -> battleField.toHackString().length());
+        }
+        name = String.format("BattleField.render %dx%d", size, size);
+        if (name.contains(filter)) {
+            // Один и тот же буфер на каждый кадр, как при выводе поля в игре
+            StringBuilder sb = new StringBuilder();
+            benchmark.measure(name, () -> {
+                sb.setLength(0);
+                try {
+                    battleField.render(sb);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return sb.length();
+            });
+        }
+    }
+
+    /**
+     * Solving a fresh small field exactly with the default node limit.
+     * The solver must finish with the known expected amount of shots, otherwise the benchmark fails.
+     */
+    private void endgame(String ships, int sizeX, int sizeY, int[] amounts, double expected) throws Exception {
+        String name = String.format("endgame solver, %s %dx%d", ships, sizeX, sizeY);
+        if (!name.contains(filter)) {
+            return;
+        }
+        GameConfig config = new GameConfig(sizeX, sizeY, new FleetConfig(amounts, 0), false);
+        GameEngine engine = new GameEngine(config, rnd.split());
+        if (engine.placeFleet() != PlacementResult.placed) {
+            throw new Exception("Unable to set coordinates");
+        }
+        EndgameSolver solver = new EndgameSolver(config);
+        if (solver.advise(engine) < 0 || !solver.isExact() || Math.abs(solver.getExpectedShots() - expected) > 1e-9) {
+            throw new Exception(String.format("%s: expected exactly %.6f shots, solved %.6f",
+                    name, expected, solver.getExpectedShots()));
+        }
+        benchmark.measure(name, () -> solver.advise(engine));
+    }
+
+    /**
+     * Creating a game configuration.
+     *
+     * @param torpedoes amount of torpedoes, -1 means one torpedo for every ship.
+     */
+    private static GameConfig createConfig(int size, double density, int torpedoes) throws Exception {
+        int[] amounts = new int[ShipType.values().length];
+        int whole = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = (int) Math.round(classicAmounts[i] * density * size * size / 100);
+            whole += amounts[i];
+        }
+        return new GameConfig(size, size, new FleetConfig(amounts, torpedoes < 0 ? whole : torpedoes), false);
+    }
+
+    private int[] shuffledCells(int cells) {
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            int j = rnd.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,135 @@
+package battleship.engine;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of attacks needed to win over a batch of games.
+ */
+public class BatchReport {
+    private final String strategyName;
+    private final int[] shots;
+    private final int unfinished;
+
+    /**
+     * BatchReport constructor.
+     *
+     * @param strategyName name of the strategy that played the games.
+     * @param shots        amounts of attacks of every finished game.
+     * @param unfinished   amount of games that exceeded the attacks limit.
+     */
+    public BatchReport(String strategyName, int[] shots, int unfinished) {
+        this.strategyName = strategyName;
+        this.shots = shots.clone();
+        this.unfinished = unfinished;
+        Arrays.sort(this.shots);
+    }
+
+    /**
+     * Getting an amount of finished games.
+     *
+     * @return the amount of games.
+     */
+    public int getGames() {
+        return shots.length;
+    }
+
+    /**
+     * Getting an amount of games that exceeded the attacks limit.
+     *
+     * @return the amount of games.
+     */
+    public int getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * Getting the smallest amount of attacks.
+     *
+     * @return the amount of attacks or 0 if there are no finished games.
+     */
+    public int getMin() {
+        return shots.length == 0 ? 0 : shots[0];
+    }
+
+    /**
+     * Getting the largest amount of attacks.
+     *
+     * @return the amount of attacks or 0 if there are no finished games.
+     */
+    public int getMax() {
+        return shots.length == 0 ? 0 : shots[shots.length - 1];
+    }
+
+    /**
+     * Getting the average amount of attacks.
+     *
+     * @return the average or 0 if there are no finished games.
+     */
+    public double getMean() {
+        long sum = 0;
+        for (int s : shots) {
+            sum += s;
+        }
+        return shots.length == 0 ? 0 : (double) sum / shots.length;
+    }
+
+    /**
+     * Getting the amount of attacks that was enough to win the given share of games.
+     *
+     * @param p share of games from 0 to 1.
+     * @return the amount of attacks or 0 if there are no finished games.
+     */
+    public int getPercentile(double p) {
+        if (shots.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * shots.length) - 1;
+        return shots[Math.max(0, Math.min(index, shots.length - 1))];
+    }
+
+    /**
+     * Getting amounts of games grouped by amounts of attacks.
+     *
+     * @param buckets amount of groups.
+     * @return amounts of games, the group i begins with getMin() + i * width attacks,
+     * where width is (getMax() - getMin()) / buckets rounded up.
+     */
+    public int[] getHistogram(int buckets) {
+        int[] histogram = new int[buckets];
+        int width = getBucketWidth(buckets);
+        for (int s : shots) {
+            histogram[Math.min((s - getMin()) / width, buckets - 1)]++;
+        }
+        return histogram;
+    }
+
+    private int getBucketWidth(int buckets) {
+        return Math.max(1, (getMax() - getMin() + buckets) / buckets);
+    }
+
+    /**
+     * @return text view of the distribution.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(strategyName).append(System.lineSeparator());
+        sb.append(String.format("\tgames\t-\t%d (unfinished %d)%n", getGames(), unfinished));
+        sb.append(String.format("\tmean\t-\t%.2f%n", getMean()));
+        sb.append(String.format("\tmin/p50/p90/p99/max\t-\t%d/%d/%d/%d/%d%n", getMin(),
+                getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getMax()));
+        if (shots.length > 0) {
+            int buckets = 10;
+            int width = getBucketWidth(buckets);
+            int[] histogram = getHistogram(buckets);
+            for (int i = 0; i < buckets; i++) {
+                if (histogram[i] == 0) {
+                    continue;
+                }
+                int from = getMin() + i * width;
+                sb.append(String.format("\t%5d-%-5d\t%d%n", from, from + width - 1, histogram[i]));
+            }
+        }
+        return sb.toString();
+    }
+}
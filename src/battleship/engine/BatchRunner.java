@@ -0,0 +1,197 @@
+package battleship.engine;
+
+import battleship.enums.PlacementResult;
+import battleship.enums.ShotResult;
+import battleship.models.GameConfig;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games without console and collects how many attacks strategies need to win.
+ * The game number i always gets the same random generator for the same seed,
+ * so results don't depend on the order or the thread the games are played in.
+ */
+public class BatchRunner {
+    // Количество партий, которые один поток играет без дальнейшего деления задачи
+    private static final int GAMES_PER_TASK = 64;
+
+    private final GameConfig config;
+    private final long seed;
+
+    /**
+     * BatchRunner constructor.
+     *
+     * @param config parameters of every game.
+     * @param seed   seed of the whole batch.
+     */
+    public BatchRunner(GameConfig config, long seed) {
+        this.config = config;
+        this.seed = seed;
+    }
+
+    /**
+     * Playing games by the strategy in the current thread.
+     *
+     * @param strategy the strategy to play.
+     * @param games    amount of games.
+     * @return the report about amounts of attacks.
+     * @throws Exception throws if the fleet can't be placed.
+     */
+    public BatchReport run(ShootingStrategy strategy, int games) throws Exception {
+        int[] shots = new int[games];
+        for (int i = 0; i < games; i++) {
+            shots[i] = playGame(strategy, i);
+        }
+        return createReport(strategy.getClass().getSimpleName(), shots);
+    }
+
+    /**
+     * Playing games on all threads of the pool.
+     * Every task gets its own strategy object, the results are the same as of run.
+     *
+     * @param strategies supplier of strategy objects.
+     * @param games      amount of games.
+     * @param pool       pool to play games in.
+     * @return the report about amounts of attacks.
+     * @throws Exception throws if the fleet can't be placed.
+     */
+    public BatchReport runParallel(Supplier<ShootingStrategy> strategies, int games,
+                                   ForkJoinPool pool) throws Exception {
+        int[] shots = new int[games];
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        pool.invoke(new GamesTask(strategies, shots, failure, 0, games));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return createReport(strategies.get().getClass().getSimpleName(), shots);
+    }
+
+    /**
+     * Playing the game number index.
+     * A game that needs more attacks than the field has cells multiplied by 4
+     * is stopped and counted as unfinished.
+     *
+     * @return the amount of attacks or -1 if the game is unfinished.
+     * @throws Exception throws if the fleet can't be placed.
+     */
+    private int playGame(ShootingStrategy strategy, int index) throws Exception {
+        GameEngine engine = play(strategy, index, null);
+        return engine.isOver() ? engine.getAttackCount() : -1;
+    }
+
+    /**
+     * Playing the game number index and recording its moves.
+     * The game is the same as the game number index of run.
+     *
+     * @param strategy the strategy to play.
+     * @param index    number of the game.
+     * @param moveLog  where the moves are appended, it is cleared before the game.
+     * @return the finished or stopped game.
+     * @throws Exception throws if the fleet can't be placed.
+     */
+    public GameEngine playRecorded(ShootingStrategy strategy, int index, MoveLog moveLog) throws Exception {
+        moveLog.clear();
+        return play(strategy, index, moveLog);
+    }
+
+    private GameEngine play(ShootingStrategy strategy, int index, MoveLog moveLog) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(new SplittableRandom(seed + index).nextLong());
+        // Партия строится из явного зерна, чтобы записанная партия восстанавливалась по нему
+        GameEngine engine = new GameEngine(config, rnd.nextLong());
+        engine.setMoveLog(moveLog);
+        if (engine.placeFleet() != PlacementResult.placed) {
+            throw new Exception("Unable to set coordinates");
+        }
+        strategy.newGame(engine, rnd.split());
+        int maxShots = 4 * config.sizeX * config.sizeY;
+        while (!engine.isOver() && engine.getAttackCount() < maxShots) {
+            int cell = strategy.nextShot();
+            ShotResult result = engine.fire(cell / config.sizeY, cell % config.sizeY);
+            strategy.onResult(cell, result);
+        }
+        return engine;
+    }
+
+    private static BatchReport createReport(String name, int[] shots) {
+        int[] finished = Arrays.stream(shots).filter(s -> s >= 0).toArray();
+        return new BatchReport(name, finished, shots.length - finished.length);
+    }
+
+    /**
+     * Task playing games from (inclusive) to (exclusive), big ranges are split in halves.
+     */
+    private class GamesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Supplier<ShootingStrategy> strategies;
+        private final int[] shots;
+        private final AtomicReference<Exception> failure;
+        private final int from;
+        private final int to;
+
+        GamesTask(Supplier<ShootingStrategy> strategies, int[] shots, AtomicReference<Exception> failure,
+                  int from, int to) {
+            this.strategies = strategies;
+            this.shots = shots;
+            this.failure = failure;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                ShootingStrategy strategy = strategies.get();
+                try {
+                    for (int i = from; i < to && failure.get() == null; i++) {
+                        shots[i] = playGame(strategy, i);
+                    }
+                } catch (Exception ex) {
+                    failure.compareAndSet(null, ex);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GamesTask(strategies, shots, failure, from, middle),
+                    new GamesTask(strategies, shots, failure, middle, to));
+        }
+    }
+
+    /**
+     * Running the batch from the command line.
+     * Parameters are optionally --endgame, the amount of games, then all 9 game parameters and optionally the seed.
+     * Every built-in strategy plays the given amount of games on all processors,
+     * EndgameStrategy plays only with --endgame, because its exact search is much slower than the others.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            boolean isEndgamePlayed = args.length > 0 && Objects.equals(args[0], "--endgame");
+            if (isEndgamePlayed) {
+                args = Arrays.copyOfRange(args, 1, args.length);
+            }
+            int games = Integer.parseInt(args[0]);
+            GameConfig config = GameConfig.tryParseCommandLineParams(Arrays.copyOfRange(args, 1, 10));
+            long seed = args.length > 10 ? Long.parseLong(args[10]) : System.nanoTime();
+            BatchRunner runner = new BatchRunner(config, seed);
+            System.out.println("seed - " + seed);
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            System.out.println(runner.runParallel(RandomStrategy::new, games, pool));
+            System.out.println(runner.runParallel(HuntTargetStrategy::new, games, pool));
+            System.out.println(runner.runParallel(ProbabilityStrategy::new, games, pool));
+            if (isEndgamePlayed) {
+                System.out.println(runner.runParallel(EndgameStrategy::new, games, pool));
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect batch parameters" : ex.getMessage());
+            System.out.println("Usage: --batch [--endgame] games sizeX sizeY carriers battleships cruisers "
+                    + "destroyers submarines torpedoes recovery [seed]");
+        }
+    }
+}
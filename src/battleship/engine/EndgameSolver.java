@@ -0,0 +1,860 @@
+package battleship.engine;
+
+import battleship.enums.ShipType;
+import battleship.models.BattleField;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Exact solver of the end of the game.
+ * <p>
+ * When few ships are left, all layouts of the remaining ships which agree with the visible field
+ * can be listed: ships avoid missed and sunken cells with their neighbours, don't touch each other
+ * and cover every hit cell. Every layout is taken as equally likely. A shot splits the layouts
+ * into a miss, a hit and a sinking of every possible ship, so the expected amount of shots
+ * to sink the rest of the fleet is minimized exactly by the search over shots and their results.
+ * Every ship cell needs its own shot, and until the first hit the shots can't depend on results,
+ * so the chance to miss with the first t shots is at least one minus the sum of the t biggest
+ * chances of cells. Together these give a lower bound of every candidate shot, candidates are tried
+ * from the smallest bound and the rest are cut when the bound isn't less than the best value found.
+ * Every part of a shot is searched only while it can still make the shot the best one.
+ * Cells covered by the same ships of the same layouts are interchangeable, only one of them is tried.
+ * <p>
+ * Positions of the search are identified by the set of layouts left and the Zobrist hash of hit
+ * and sunken cells: every state of every cell has its random key and the hash is XOR of the keys.
+ * Missed cells don't matter as long as they remove the same layouts, so a position reached by
+ * different misses or different orders of shots is solved once. Solved positions are kept in
+ * the transposition table of fixed size, every entry is a pair of a position solved with more layouts
+ * and the last stored one. Entries stored by earlier calls are ignored, so the advice and whether
+ * it is exact depend only on the position, not on earlier calls.
+ * <p>
+ * Recovery mode changes the field after a miss, so the solver doesn't advise in this mode.
+ * One solver must not be shared between threads.
+ */
+public class EndgameSolver {
+    /**
+     * The biggest amount of layouts the solver searches over, with more layouts the search rarely
+     * finishes within the default node limit.
+     */
+    public static final int MAX_LAYOUTS = 128;
+    /**
+     * The biggest field the solver works with.
+     */
+    public static final int MAX_CELLS = 1 << 16;
+    /**
+     * Default amount of entries of the transposition table.
+     */
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 17;
+    /**
+     * Default limit of positions visited by one call, after it the solver gives the most probable cell.
+     */
+    public static final long DEFAULT_NODE_LIMIT = 50_000;
+    // Значения, отличающиеся меньше, считаются равными, иначе оценка, равная значению, ничего не отсекает
+    private static final double EPSILON = 1e-9;
+
+    // Видимые состояния клеток
+    private static final int UNKNOWN = 0;
+    private static final int MISS = 1;
+    private static final int HIT = 2;
+    private static final int SUNK = 3;
+    private static final ShipType[] types = ShipType.values();
+
+    private final GameConfig config;
+    private final int sizeX;
+    private final int sizeY;
+    private final int cells;
+    private final boolean isRecoveryModEnabled;
+    private final long nodeLimit;
+    // Ключи Золбриста: клетка * 4 + состояние, и начальное значение хеша
+    private final long[] zobrist;
+    private final long zobristBase;
+
+    // Таблица транспозиций
+    private final long[] tableKeys;
+    private final double[] tableValues;
+    // Ложь, если значение - только нижняя оценка
+    private final boolean[] tableExact;
+    private final int[] tableMoves;
+    private final int[] tableWork;
+    private final int[] tableAges;
+    private int age;
+
+    // Возможные позиции кораблей, клетки позиции p лежат в positionCells[positionStart[p]..positionStart[p + 1])
+    private int[] positionStart = new int[1];
+    private int[] positionCells = new int[0];
+    private int[] positionType = new int[0];
+    private int positions;
+    // Расстановки: корабль s расстановки l стоит в позиции layoutShips[l * shipsLeft + s]
+    private int[] layoutShips = new int[0];
+    private int layouts;
+    private int shipsLeft;
+    private int shipCells;
+    private long steps;
+
+    // Состояние поиска
+    private final int[] state;
+    private long hash;
+    private int hitCells;
+    private int sunkInSearch;
+    private long nodes;
+    private boolean isAborted;
+    private int rootMove;
+    // Стек подмножеств расстановок с ключами их исходов и стек кандидатов
+    private int[] pool = new int[0];
+    private int[] poolKeys = new int[0];
+    // Кандидаты текущего уровня лежат в candidates[candidateTop - candidateCount..candidateTop)
+    private long[] candidates = new long[64];
+    private double[] candidateBounds = new double[64];
+    private int candidateTop;
+    private int candidateCount;
+    private long[] sortBuffer = new long[0];
+    private final int[] counts;
+    private final long[] signatures;
+    private final int[] touched;
+    // Рабочие массивы оценок кандидатов одного уровня
+    private long[] prefix = new long[0];
+    private long[] prefixSums = new long[0];
+    private long[] order = new long[0];
+    private long[] orderCells = new long[0];
+    private double[] orderBounds = new double[0];
+
+    // Результат последнего совета
+    private double expectedShots = Double.NaN;
+    private boolean isExact;
+
+    /**
+     * EndgameSolver constructor with the default table size and node limit.
+     *
+     * @param config parameters of the games.
+     */
+    public EndgameSolver(GameConfig config) {
+        this(config, DEFAULT_TABLE_ENTRIES, DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * EndgameSolver constructor.
+     *
+     * @param config       parameters of the games.
+     * @param tableEntries amount of entries of the transposition table, it is rounded up to a power of two.
+     * @param nodeLimit    the maximum amount of positions visited by one call.
+     */
+    public EndgameSolver(GameConfig config, int tableEntries, long nodeLimit) {
+        this.config = config;
+        sizeX = config.sizeX;
+        sizeY = config.sizeY;
+        isRecoveryModEnabled = config.isRecoveryModEnabled;
+        this.nodeLimit = nodeLimit;
+        long area = (long) sizeX * sizeY;
+        cells = area <= MAX_CELLS ? (int) area : 0;
+        state = new int[cells];
+        counts = new int[cells];
+        signatures = new long[cells];
+        touched = new int[cells];
+        // Ключи фиксированы, поэтому хеши одинаковы во всех решателях
+        SplittableRandom rnd = new SplittableRandom(0x5EED);
+        zobrist = new long[4 * cells];
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = rnd.nextLong();
+        }
+        zobristBase = rnd.nextLong();
+        int entries = Integer.highestOneBit(Math.max(tableEntries, 2) - 1) << 1;
+        tableKeys = new long[entries];
+        tableValues = new double[entries];
+        tableExact = new boolean[entries];
+        tableMoves = new int[entries];
+        tableWork = new int[entries];
+        tableAges = new int[entries];
+    }
+
+    /**
+     * Choosing the cell that minimizes the expected amount of shots to sink the rest of the fleet.
+     * Only the visible field and the types of sunken ships are used.
+     *
+     * @param engine the game.
+     * @return the index of the cell x * sizeY + y or -1 if the solver can't advise:
+     * the game is over, recovery mode is enabled, the field is too big, there are too many layouts
+     * or the search found no way to sink the fleet.
+     */
+    public int advise(GameEngine engine) {
+        expectedShots = Double.NaN;
+        isExact = false;
+        BattleField battleField = engine.getBattleField();
+        if (isRecoveryModEnabled || cells == 0 || engine.isOver()
+                || battleField.sizeX != sizeX || battleField.sizeY != sizeY) {
+            return -1;
+        }
+        int[] remaining = new int[types.length];
+        for (Ship sh : engine.getFleet().getShips()) {
+            if (!sh.isSunk()) {
+                remaining[sh.getType().ordinal()]++;
+            }
+        }
+        readField(battleField);
+        if (!listLayouts(remaining) || layouts == 0) {
+            return -1;
+        }
+        age++;
+        nodes = 0;
+        isAborted = false;
+        sunkInSearch = 0;
+        ensurePool(layouts);
+        for (int l = 0; l < layouts; l++) {
+            pool[l] = l;
+        }
+        double value = solve(0, layouts, layouts, 0, Double.POSITIVE_INFINITY);
+        if (isAborted) {
+            return mostProbableCell();
+        }
+        if (rootMove < 0 || Double.isInfinite(value)) {
+            return -1;
+        }
+        expectedShots = value;
+        isExact = true;
+        return rootMove;
+    }
+
+    /**
+     * Getting parameters of the games the solver was created for.
+     *
+     * @return the config.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Getting the expected amount of shots to sink the rest of the fleet found by the last call of advise.
+     *
+     * @return the amount of shots or NaN if the last advice wasn't exact.
+     */
+    public double getExpectedShots() {
+        return expectedShots;
+    }
+
+    /**
+     * Check if the last advice minimizes the expected amount of shots.
+     *
+     * @return false if the node limit was exceeded and the most probable cell was given,
+     * or if there was no advice.
+     */
+    public boolean isExact() {
+        return isExact;
+    }
+
+    /**
+     * Getting an amount of layouts the last call of advise searched over.
+     *
+     * @return the amount of layouts.
+     */
+    public int getLayouts() {
+        return layouts;
+    }
+
+    /**
+     * Getting an amount of positions the last call of advise visited.
+     *
+     * @return the amount of positions.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Reading the visible states of cells and the hash of the field.
+     */
+    private void readField(BattleField battleField) {
+        hash = zobristBase;
+        hitCells = 0;
+        for (int x = 0; x < sizeX; x++) {
+            for (int y = 0; y < sizeY; y++) {
+                int cell = x * sizeY + y;
+                state[cell] = switch (battleField.getCellGlyph(x, y)) {
+                    case '#' -> MISS;
+                    case '*' -> HIT;
+                    case 'x' -> SUNK;
+                    default -> UNKNOWN;
+                };
+                if (state[cell] >= HIT) {
+                    hash ^= zobrist[4 * cell + state[cell]];
+                }
+                if (state[cell] == HIT) {
+                    hitCells++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Listing all layouts of the remaining ships that agree with the field.
+     *
+     * @return false if there are more than MAX_LAYOUTS layouts.
+     */
+    private boolean listLayouts(int[] remaining) {
+        // Клетки, где не может быть непотопленного корабля: промахи, потопленные корабли и их соседи
+        boolean[] forbidden = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (state[cell] == MISS) {
+                forbidden[cell] = true;
+            } else if (state[cell] == SUNK) {
+                int x = cell / sizeY;
+                int y = cell % sizeY;
+                for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, sizeX - 1); nx++) {
+                    for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, sizeY - 1); ny++) {
+                        forbidden[nx * sizeY + ny] = true;
+                    }
+                }
+            }
+        }
+        shipsLeft = 0;
+        shipCells = 0;
+        positions = 0;
+        positionStart[0] = 0;
+        int[] ships = new int[Arrays.stream(remaining).sum()];
+        int[] firstPosition = new int[types.length + 1];
+        for (int t = 0; t < types.length; t++) {
+            firstPosition[t] = positions;
+            for (int i = 0; i < remaining[t]; i++) {
+                ships[shipsLeft++] = t;
+                shipCells += types[t].getSize();
+            }
+            if (remaining[t] > 0) {
+                addPositions(t, forbidden);
+            }
+        }
+        firstPosition[types.length] = positions;
+        if (hitCells == 0 && countLayoutsAtLeast(ships, firstPosition) > MAX_LAYOUTS) {
+            return false;
+        }
+        int[] hits = new int[hitCells];
+        int hitCount = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (state[cell] == HIT) {
+                hits[hitCount++] = cell;
+            }
+        }
+        layouts = 0;
+        // near[cell] - количество поставленных кораблей, занимающих клетку или соседних с ней
+        int[] near = new int[cells];
+        int[] covered = new int[cells];
+        int[] chosen = new int[shipsLeft];
+        steps = 0;
+        return place(ships, 0, firstPosition, chosen, near, covered, hits);
+    }
+
+    /**
+     * Getting a lower bound of the amount of layouts when no cell is hit, it is found without listing them.
+     * Ships are placed one by one, every placed ship forbids at most the positions crossing its
+     * neighbourhood, and equal ships placed in different orders give the same layout.
+     */
+    private double countLayoutsAtLeast(int[] ships, int[] firstPosition) {
+        double count = 1;
+        for (int i = 0; i < ships.length; i++) {
+            int size = types[ships[i]].getSize();
+            long free = firstPosition[ships[i] + 1] - firstPosition[ships[i]];
+            int equal = 1;
+            for (int j = 0; j < i; j++) {
+                // Соседство корабля - прямоугольник 3 на длину корабля плюс 2
+                int around = types[ships[j]].getSize() + 2;
+                free -= size == 1 ? 3L * around : 3L * (around + size - 1) + (long) around * (size + 2);
+                if (ships[j] == ships[i]) {
+                    equal++;
+                }
+            }
+            if (free <= 0) {
+                return 0;
+            }
+            count *= (double) free / equal;
+        }
+        return count;
+    }
+
+    private void addPositions(int t, boolean[] forbidden) {
+        int size = types[t].getSize();
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell / sizeY;
+            int y = cell % sizeY;
+            for (int o = 0; o < (size == 1 ? 1 : 2); o++) {
+                if (o == 0 ? y + size > sizeY : x + size > sizeX) {
+                    continue;
+                }
+                int step = o == 0 ? 1 : sizeY;
+                boolean fits = true;
+                for (int i = 0; i < size && fits; i++) {
+                    fits = !forbidden[cell + i * step];
+                }
+                if (!fits) {
+                    continue;
+                }
+                if (positions + 1 >= positionStart.length) {
+                    positionStart = Arrays.copyOf(positionStart, 2 * positionStart.length + 1);
+                    positionType = Arrays.copyOf(positionType, positionStart.length);
+                }
+                int start = positionStart[positions];
+                if (start + size > positionCells.length) {
+                    positionCells = Arrays.copyOf(positionCells, 2 * positionCells.length + size);
+                }
+                for (int i = 0; i < size; i++) {
+                    positionCells[start + i] = cell + i * step;
+                }
+                positionType[positions] = t;
+                positionStart[++positions] = start + size;
+            }
+        }
+    }
+
+    /**
+     * Placing the ship of the depth and all next ones, equal ships take positions in ascending order.
+     *
+     * @return false if there are too many layouts.
+     */
+    private boolean place(int[] ships, int depth, int[] firstPosition, int[] chosen,
+                          int[] near, int[] covered, int[] hits) {
+        if (depth == ships.length) {
+            for (int hit : hits) {
+                if (covered[hit] == 0) {
+                    return true;
+                }
+            }
+            if (layouts == MAX_LAYOUTS) {
+                return false;
+            }
+            int at = layouts * shipsLeft;
+            if (at + shipsLeft > layoutShips.length) {
+                layoutShips = Arrays.copyOf(layoutShips, Math.max(2 * layoutShips.length, at + shipsLeft));
+            }
+            System.arraycopy(chosen, 0, layoutShips, at, shipsLeft);
+            layouts++;
+            return true;
+        }
+        int t = ships[depth];
+        int from = depth > 0 && ships[depth - 1] == t ? chosen[depth - 1] + 1 : firstPosition[t];
+        for (int p = from; p < firstPosition[t + 1]; p++) {
+            // Перебор без ограничения шагов может идти очень долго даже при малом числе расстановок
+            if (++steps > nodeLimit) {
+                return false;
+            }
+            boolean fits = true;
+            // Непотопленный корабль не может целиком стоять на подбитых клетках, иначе он был бы потоплен
+            boolean isFloating = false;
+            for (int i = positionStart[p]; i < positionStart[p + 1] && fits; i++) {
+                fits = near[positionCells[i]] == 0;
+                isFloating |= state[positionCells[i]] != HIT;
+            }
+            if (!fits || !isFloating) {
+                continue;
+            }
+            chosen[depth] = p;
+            mark(p, near, covered, 1);
+            boolean isListed = place(ships, depth + 1, firstPosition, chosen, near, covered, hits);
+            mark(p, near, covered, -1);
+            if (!isListed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void mark(int p, int[] near, int[] covered, int delta) {
+        for (int i = positionStart[p]; i < positionStart[p + 1]; i++) {
+            int cell = positionCells[i];
+            covered[cell] += delta;
+            int x = cell / sizeY;
+            int y = cell % sizeY;
+            for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, sizeX - 1); nx++) {
+                for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, sizeY - 1); ny++) {
+                    near[nx * sizeY + ny] += delta;
+                }
+            }
+        }
+    }
+
+    /**
+     * Getting the expected amount of shots to sink the rest of the fleet for the layouts pool[from..to).
+     * The layouts of the children are written into the pool starting from top.
+     *
+     * @param limit only values less than it are needed, otherwise a lower bound not less than it is returned.
+     */
+    private double solve(int from, int to, int top, int depth, double limit) {
+        int n = to - from;
+        long key = hash;
+        for (int i = from; i < to; i++) {
+            key += mix(pool[i] + zobristBase);
+        }
+        // Пара записей: первая хранит позиции с большим числом расстановок, вторая заменяется всегда
+        int entry = (int) key & (tableKeys.length - 2);
+        if (tableKeys[entry] != key || tableAges[entry] != age) {
+            entry++;
+        }
+        if (tableKeys[entry] == key && tableAges[entry] == age
+                && (tableExact[entry] || tableValues[entry] >= limit - EPSILON)) {
+            if (depth == 0) {
+                rootMove = tableMoves[entry];
+            }
+            return tableValues[entry];
+        }
+        if (++nodes > nodeLimit) {
+            isAborted = true;
+            return 0;
+        }
+        int unhit = shipCells - hitCells;
+        int candidateFrom = collectCandidates(from, to, unhit);
+        int candidateTo = candidateFrom + candidateCount;
+        double best = Double.POSITIVE_INFINITY;
+        int bestMove = -1;
+        for (int k = candidateFrom; k < candidateTo && !isAborted; k++) {
+            double cutoff = Math.min(best, limit);
+            if (candidateBounds[k] >= cutoff - EPSILON) {
+                break;
+            }
+            int cell = (int) candidates[k];
+            int covering = (int) (candidates[k] >>> 32);
+            // Оценка промаха без единицы за выстрел и клеток, которые останутся после попадания
+            double missBound = covering == n ? 0 : (candidateBounds[k] - unhit) * n / (n - covering) + unhit - 1;
+            double value = shoot(cell, from, to, top, depth, cutoff, missBound);
+            if (value < best) {
+                best = value;
+                bestMove = cell;
+            }
+        }
+        candidateTop = candidateFrom;
+        if (isAborted) {
+            return 0;
+        }
+        boolean isExactValue = best < limit;
+        double value = isExactValue ? best : limit;
+        if (depth == 0) {
+            rootMove = bestMove;
+        }
+        entry = (int) key & (tableKeys.length - 2);
+        if (tableKeys[entry] != key && tableAges[entry] == age && n < tableWork[entry]) {
+            entry++;
+        }
+        tableKeys[entry] = key;
+        tableValues[entry] = value;
+        tableMoves[entry] = bestMove;
+        tableExact[entry] = isExactValue;
+        tableWork[entry] = n;
+        tableAges[entry] = age;
+        return value;
+    }
+
+    /**
+     * Pushing the cells worth shooting on the stack of candidates with lower bounds of their values,
+     * the smallest bound first. If a cell has a ship in every layout, only this cell is taken,
+     * it must be shot anyway. Of cells covered by the same ships of the same layouts only one is taken:
+     * swapping such cells changes nothing, so shots at them are worth the same.
+     * <p>
+     * Until a shot hits, the results of shots are known in advance, so the chance to miss with
+     * the first t shots is at least one minus the sum of the t biggest chances of cells.
+     * The sum of these chances bounds the expected time of the first hit, and every ship cell
+     * but the first hit one needs its own shot. For a candidate this bound is taken for the layouts
+     * it misses, with its chance removed from the sums.
+     *
+     * @return the start of the candidates on the stack, their amount is in candidateCount.
+     */
+    private int collectCandidates(int from, int to, int unhit) {
+        int n = to - from;
+        int touchedCount = 0;
+        for (int i = from; i < to; i++) {
+            int base = pool[i] * shipsLeft;
+            for (int s = 0; s < shipsLeft; s++) {
+                int p = layoutShips[base + s];
+                long key = mix((long) pool[i] * positions + p);
+                for (int j = positionStart[p]; j < positionStart[p + 1]; j++) {
+                    int cell = positionCells[j];
+                    if (state[cell] == UNKNOWN) {
+                        if (counts[cell]++ == 0) {
+                            touched[touchedCount++] = cell;
+                        }
+                        signatures[cell] += key;
+                    }
+                }
+            }
+        }
+        int start = candidateTop;
+        if (candidates.length < start + touchedCount) {
+            candidates = Arrays.copyOf(candidates, 2 * (start + touchedCount));
+            candidateBounds = Arrays.copyOf(candidateBounds, candidates.length);
+        }
+        int count = 0;
+        int sure = -1;
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = touched[i];
+            if (counts[cell] == n && sure < 0) {
+                sure = cell;
+            }
+            candidates[start + count++] = (long) counts[cell] << 32 | cell;
+            counts[cell] = 0;
+        }
+        if (sure >= 0) {
+            for (int i = 0; i < touchedCount; i++) {
+                signatures[touched[i]] = 0;
+            }
+            candidates[start] = (long) n << 32 | sure;
+            candidateBounds[start] = unhit;
+            candidateTop = start + 1;
+            candidateCount = 1;
+            return start;
+        }
+        // По убыванию вероятности, при равенстве по возрастанию номера клетки
+        for (int i = 0; i < count; i++) {
+            candidates[start + i] = (long) (Integer.MAX_VALUE - (int) (candidates[start + i] >>> 32)) << 32
+                    | (candidates[start + i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(candidates, start, start + count);
+        for (int i = 0; i < count; i++) {
+            candidates[start + i] = (long) (Integer.MAX_VALUE - (int) (candidates[start + i] >>> 32)) << 32
+                    | (candidates[start + i] & 0xFFFFFFFFL);
+        }
+        // prefix[t] - сумма t наибольших количеств, prefixSums[t] - сумма prefix[0..t)
+        if (prefix.length < count + 2) {
+            prefix = new long[2 * count + 2];
+            prefixSums = new long[prefix.length];
+            order = new long[prefix.length];
+            orderCells = new long[prefix.length];
+            orderBounds = new double[prefix.length];
+        }
+        for (int t = 0; t < count; t++) {
+            prefix[t + 1] = prefix[t] + (candidates[start + t] >>> 32);
+        }
+        for (int t = 0; t <= count; t++) {
+            prefixSums[t + 1] = prefixSums[t] + prefix[t];
+        }
+        for (int k = 0; k < count; k++) {
+            int covering = (int) (candidates[start + k] >>> 32);
+            candidateBounds[start + k] = unhit + (double) (n - covering) / n * firstHitBound(k, covering, n - covering, count);
+        }
+        count = dropTwins(start, count);
+        for (int i = 0; i < touchedCount; i++) {
+            signatures[touched[i]] = 0;
+        }
+        // По возрастанию оценки, младшие биты оценки заменяются порядковым номером
+        for (int i = 0; i < count; i++) {
+            order[i] = Double.doubleToLongBits(candidateBounds[start + i]) & ~0xFFFFL | i;
+            orderCells[i] = candidates[start + i];
+            orderBounds[i] = candidateBounds[start + i];
+        }
+        Arrays.sort(order, 0, count);
+        for (int i = 0; i < count; i++) {
+            int k = (int) (order[i] & 0xFFFFL);
+            candidates[start + i] = orderCells[k];
+            candidateBounds[start + i] = orderBounds[k];
+        }
+        candidateTop = start + count;
+        candidateCount = count;
+        return start;
+    }
+
+    /**
+     * Getting the lower bound of the expected time of the first hit for the layouts the candidate k misses.
+     * The sums of chances are the sums of the biggest amounts of covering layouts except the candidate one,
+     * they can only be less for the layouts left after the miss.
+     */
+    private double firstHitBound(int k, int covering, int left, int count) {
+        // Первое t, при котором t наибольших клеток без кандидата покрывают все оставшиеся расстановки
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int t = (low + high) >>> 1;
+            long sum = t <= k ? prefix[t] : prefix[t + 1] - covering;
+            if (sum >= left) {
+                high = t;
+            } else {
+                low = t + 1;
+            }
+        }
+        long sums = low <= k + 1 ? prefixSums[low]
+                : prefixSums[k + 1] + prefixSums[low + 1] - prefixSums[k + 2] - (long) (low - 1 - k) * covering;
+        return low - (double) sums / left;
+    }
+
+    /**
+     * Removing candidates with the same signature as an earlier one, the signature of a cell
+     * is the sum of mixed numbers of layouts and positions covering it.
+     *
+     * @return the amount of candidates left.
+     */
+    private int dropTwins(int start, int count) {
+        for (int i = 0; i < count; i++) {
+            order[i] = signatures[(int) candidates[start + i]];
+        }
+        Arrays.sort(order, 0, count);
+        boolean hasTwins = false;
+        for (int i = 1; i < count && !hasTwins; i++) {
+            hasTwins = order[i] == order[i - 1];
+        }
+        if (!hasTwins) {
+            return count;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int cell = (int) candidates[start + i];
+            boolean isTwin = false;
+            // Близнецы покрыты одними расстановками, поэтому их количества равны
+            for (int j = kept - 1; j >= 0 && candidates[start + j] >>> 32 == candidates[start + i] >>> 32 && !isTwin; j--) {
+                isTwin = signatures[(int) candidates[start + j]] == signatures[cell];
+            }
+            if (!isTwin) {
+                candidates[start + kept] = candidates[start + i];
+                candidateBounds[start + kept] = candidateBounds[start + i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Getting the expected amount of shots if the cell is shot now.
+     * The layouts are split by the result of the shot and every part is solved with the shot applied.
+     *
+     * @param cutoff    the search stops when the value surely isn't less than it.
+     * @param missBound the lower bound of the value of the layouts the shot misses.
+     */
+    private double shoot(int cell, int from, int to, int top, int depth, double cutoff, double missBound) {
+        int n = to - from;
+        ensurePool(top + n);
+        if (sortBuffer.length < n) {
+            sortBuffer = new long[Math.max(n, 2 * sortBuffer.length)];
+        }
+        for (int i = from; i < to; i++) {
+            sortBuffer[i - from] = (long) outcome(pool[i], cell) << 32 | pool[i];
+        }
+        Arrays.sort(sortBuffer, 0, n);
+        for (int i = 0; i < n; i++) {
+            pool[top + i] = (int) sortBuffer[i];
+            poolKeys[top + i] = (int) (sortBuffer[i] >>> 32);
+        }
+        // Нижняя оценка еще не решенных частей, после попадания - по одной непораженной клетке за выстрел
+        int unhit = shipCells - hitCells;
+        double value = 1;
+        double rest = 0;
+        for (int i = top; i < top + n; i++) {
+            rest += poolKeys[i] == 0 ? missBound : unhit - 1;
+        }
+        rest /= n;
+        for (int groupFrom = top; groupFrom < top + n && !isAborted; ) {
+            int key = poolKeys[groupFrom];
+            int groupTo = groupFrom;
+            while (groupTo < top + n && poolKeys[groupTo] == key) {
+                groupTo++;
+            }
+            double share = (double) (groupTo - groupFrom) / n;
+            rest -= share * (key == 0 ? missBound : unhit - 1);
+            double limit = (cutoff - value - rest) / share;
+            value += share * solveOutcome(cell, key, groupFrom, groupTo, top + n, depth + 1, limit);
+            if (value + rest >= cutoff - EPSILON) {
+                return Double.POSITIVE_INFINITY;
+            }
+            groupFrom = groupTo;
+        }
+        return value;
+    }
+
+    /**
+     * Getting the result of the shot at the cell for the layout: 0 - miss, 1 - hit,
+     * 2 + position - the ship in this position sinks.
+     */
+    private int outcome(int layout, int cell) {
+        int base = layout * shipsLeft;
+        for (int s = 0; s < shipsLeft; s++) {
+            int p = layoutShips[base + s];
+            boolean isCovered = false;
+            boolean isLast = true;
+            for (int j = positionStart[p]; j < positionStart[p + 1]; j++) {
+                if (positionCells[j] == cell) {
+                    isCovered = true;
+                } else if (state[positionCells[j]] != HIT) {
+                    isLast = false;
+                }
+            }
+            if (isCovered) {
+                return isLast ? 2 + p : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Applying the result of the shot to the visible state, solving the rest and returning the state back.
+     */
+    private double solveOutcome(int cell, int key, int from, int to, int top, int depth, double limit) {
+        if (key == 0) {
+            setState(cell, MISS);
+            double value = solve(from, to, top, depth, limit);
+            setState(cell, UNKNOWN);
+            return value;
+        }
+        hitCells++;
+        if (key == 1) {
+            setState(cell, HIT);
+            double value = solve(from, to, top, depth, limit);
+            setState(cell, UNKNOWN);
+            hitCells--;
+            return value;
+        }
+        int p = key - 2;
+        if (sunkInSearch + 1 == shipsLeft) {
+            hitCells--;
+            return 0;
+        }
+        sunkInSearch++;
+        for (int j = positionStart[p]; j < positionStart[p + 1]; j++) {
+            setState(positionCells[j], SUNK);
+        }
+        double value = solve(from, to, top, depth, limit);
+        for (int j = positionStart[p]; j < positionStart[p + 1]; j++) {
+            setState(positionCells[j], positionCells[j] == cell ? UNKNOWN : HIT);
+        }
+        sunkInSearch--;
+        hitCells--;
+        return value;
+    }
+
+    private void setState(int cell, int newState) {
+        if (state[cell] >= HIT) {
+            hash ^= zobrist[4 * cell + state[cell]];
+        }
+        state[cell] = newState;
+        if (newState >= HIT) {
+            hash ^= zobrist[4 * cell + newState];
+        }
+    }
+
+    /**
+     * Getting the cell that has a ship in the most layouts, it is the advice when the search is too long.
+     */
+    private int mostProbableCell() {
+        int best = -1;
+        int bestCount = 0;
+        for (int l = 0; l < layouts; l++) {
+            for (int s = 0; s < shipsLeft; s++) {
+                int p = layoutShips[l * shipsLeft + s];
+                for (int j = positionStart[p]; j < positionStart[p + 1]; j++) {
+                    int cell = positionCells[j];
+                    if (state[cell] == UNKNOWN && ++counts[cell] > bestCount) {
+                        best = cell;
+                        bestCount = counts[cell];
+                    }
+                }
+            }
+        }
+        Arrays.fill(counts, 0);
+        return best;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private void ensurePool(int size) {
+        if (pool.length < size) {
+            pool = Arrays.copyOf(pool, Math.max(size, 2 * pool.length));
+            poolKeys = Arrays.copyOf(poolKeys, pool.length);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package battleship.engine;
+
+import battleship.enums.ShotResult;
+
+import java.util.SplittableRandom;
+
+/**
+ * Probability strategy which gives the end of the game to the exact solver.
+ * While many ships are afloat the shots are chosen by ProbabilityStrategy.
+ * When at most MAX_SHIPS ships are left, every shot is advised by EndgameSolver,
+ * and once it has advised it keeps playing until the end of the game,
+ * because the probability strategy chases only one damaged ship at a time.
+ * If the solver can't give an exact advice, the probability strategy shoots,
+ * and the solver isn't asked again until a shot hits or sinks a ship.
+ * The solver is reused by all games of the same configuration, so its tables are allocated once.
+ */
+public class EndgameStrategy implements ShootingStrategy {
+    /**
+     * The biggest amount of remaining ships for which the solver is asked.
+     */
+    public static final int MAX_SHIPS = 2;
+    /**
+     * Limit of positions visited for one shot, the strategy plays many games,
+     * so it gives up on long searches earlier than the hint does.
+     */
+    public static final long NODE_LIMIT = 10_000;
+
+    private final ProbabilityStrategy probability = new ProbabilityStrategy();
+    private EndgameSolver solver;
+    private GameEngine engine;
+    private boolean isSolving;
+    // Количество попаданий и потоплений, после которого решатель не смог посоветовать, -1 если мог
+    private int failedAtHits;
+    private int hits;
+
+    @Override
+    public void newGame(GameEngine engine, SplittableRandom rnd) {
+        this.engine = engine;
+        probability.newGame(engine, rnd);
+        if (solver == null || solver.getConfig() != engine.getConfig()) {
+            solver = new EndgameSolver(engine.getConfig(), (int) (4 * NODE_LIMIT), NODE_LIMIT);
+        }
+        isSolving = false;
+        failedAtHits = -1;
+        hits = 0;
+    }
+
+    @Override
+    public int nextShot() {
+        // Промахи редко делают слишком долгий поиск возможным, поэтому после отказа решатель ждет попадания
+        if ((isSolving || engine.getFleet().getRemainingShips() <= MAX_SHIPS) && failedAtHits != hits) {
+            int cell = solver.advise(engine);
+            if (cell >= 0 && solver.isExact()) {
+                isSolving = true;
+                return cell;
+            }
+            failedAtHits = hits;
+        }
+        return probability.nextShot();
+    }
+
+    @Override
+    public void onResult(int cell, ShotResult result) {
+        probability.onResult(cell, result);
+        if (result == ShotResult.hit || result == ShotResult.sunk) {
+            hits++;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package battleship.engine;
+
+import battleship.enums.PlacementResult;
+import battleship.enums.ShotResult;
+import battleship.metrics.GameMetrics;
+import battleship.models.BattleField;
+import battleship.models.BoardPool;
+import battleship.models.Fleet;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.util.SplittableRandom;
+
+/**
+ * Rules of the game without any console input or output.
+ * Every move returns its result, so the game can be driven by a program.
+ */
+public class GameEngine {
+    private static final ShotResult[] shotResults = ShotResult.values();
+
+    private final GameConfig config;
+    private final BattleField battleField;
+    private final Fleet fleet;
+    private final boolean isRecoveryModEnabled;
+    private final long seed;
+    private int attackCount = 0;
+    private Ship lastAttackedShip;
+    private MoveLog moveLog;
+    // Количества результатов выстрелов залпа, обнуляются после каждого залпа
+    private final int[] salvoCounts = new int[shotResults.length];
+
+    /**
+     * Creating a new game with its own battlefield and fleet.
+     *
+     * @param config parameters of the game.
+     * @param rnd    random generator of the game, the same seed gives the same placement.
+     */
+    public GameEngine(GameConfig config, SplittableRandom rnd) {
+        this(config, rnd, 0, new BattleField(config.sizeX, config.sizeY));
+    }
+
+    /**
+     * Creating a new game with its own battlefield and fleet.
+     * The same seed gives the same placement.
+     *
+     * @param config parameters of the game.
+     * @param seed   seed of the random generator of the game.
+     */
+    public GameEngine(GameConfig config, long seed) {
+        this(config, new SplittableRandom(seed), seed, new BattleField(config.sizeX, config.sizeY));
+    }
+
+    /**
+     * Creating a new game whose battlefield lives in a slot of the pool.
+     * The same seed gives the same placement as without the pool.
+     * The slot must be given back by release when the game ends.
+     *
+     * @param config parameters of the game, the field size must be the size of the pool.
+     * @param seed   seed of the random generator of the game.
+     * @param pool   the pool of battlefields.
+     */
+    public GameEngine(GameConfig config, long seed, BoardPool pool) {
+        this(config, new SplittableRandom(seed), seed, createBattleField(config, pool));
+    }
+
+    private GameEngine(GameConfig config, SplittableRandom rnd, long seed, BattleField battleField) {
+        this.config = config;
+        this.battleField = battleField;
+        this.fleet = new Fleet(config.fleetConfig, rnd);
+        this.isRecoveryModEnabled = config.isRecoveryModEnabled;
+        this.seed = seed;
+        fleet.setBattleField(battleField);
+    }
+
+    /**
+     * Parsing a game's parameters into the GameEngine object.
+     *
+     * @param gameParams all 9 game parameters.
+     * @return GameEngine object with not yet placed fleet and a random seed.
+     * @throws Exception throws if it is impossible to create an object due to incorrect parameters.
+     */
+    public static GameEngine tryParseCommandLineParams(String[] gameParams) throws Exception {
+        return tryParseCommandLineParams(gameParams, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Parsing a game's parameters into the GameEngine object with the given seed.
+     *
+     * @param gameParams all 9 game parameters.
+     * @param seed       seed of the random generator of the game.
+     * @return GameEngine object with not yet placed fleet.
+     * @throws Exception throws if it is impossible to create an object due to incorrect parameters.
+     */
+    public static GameEngine tryParseCommandLineParams(String[] gameParams, long seed) throws Exception {
+        return new GameEngine(GameConfig.tryParseCommandLineParams(gameParams), seed);
+    }
+
+    /**
+     * Placing the fleet in the ocean.
+     *
+     * @return the result of the placement.
+     */
+    public PlacementResult placeFleet() {
+        return fleet.trySetFleet();
+    }
+
+    /**
+     * Main attack method.
+     * Nothing is allocated during the shot, so it can be called in tight loops.
+     *
+     * @param x the x coordinate of the cell.
+     * @param y the y coordinate of the cell.
+     * @return the result of the shot.
+     */
+    public ShotResult fire(int x, int y) {
+        ShotResult result = shoot(x, y);
+        record(x, y, false, result);
+        GameMetrics.countShot(result);
+        return result;
+    }
+
+    private ShotResult shoot(int x, int y) {
+        if (!isInside(x, y)) {
+            return ShotResult.invalid;
+        }
+        attackCount++;
+        if (battleField.isIntactShip(x, y)) {
+            battleField.markHit(x, y);
+            lastAttackedShip = fleet.getHitShip(x, y);
+            fleet.hit(lastAttackedShip);
+            if (lastAttackedShip.isSunk()) {
+                battleField.changeMatrixAfterSunk(lastAttackedShip);
+                return fleet.areAllShipsSunk() ? ShotResult.win : ShotResult.sunk;
+            }
+            return ShotResult.hit;
+        }
+        if (battleField.isAttacked(x, y)) {
+            return ShotResult.repeat;
+        }
+        battleField.markMiss(x, y);
+        // Если recovery mode включен, предыдущий корабль был поврежден, но не потоплен,
+        // то после промаха он восстановится
+        if (isRecoveryModEnabled && lastAttackedShip != null && lastAttackedShip.isDamaged()) {
+            battleField.changeMatrixAfterRecover(lastAttackedShip);
+            lastAttackedShip.recover();
+            return ShotResult.recovered;
+        }
+        return ShotResult.miss;
+    }
+
+    /**
+     * Firing at many cells in one call, every cell is shot like by fire in the given order.
+     * After the shot that sinks the last ship the rest cells are not shot.
+     * Shots are counted in the metrics once for the whole salvo.
+     *
+     * @param xs      x coordinates of the cells.
+     * @param ys      y coordinates of the cells.
+     * @param count   amount of cells.
+     * @param results where to write the result of every shot, at least count elements.
+     * @return amount of shot cells.
+     */
+    public int salvo(int[] xs, int[] ys, int count, ShotResult[] results) {
+        int fired = 0;
+        while (fired < count && !fleet.areAllShipsSunk()) {
+            ShotResult result = shoot(xs[fired], ys[fired]);
+            record(xs[fired], ys[fired], false, result);
+            salvoCounts[result.ordinal()]++;
+            results[fired++] = result;
+        }
+        for (ShotResult result : shotResults) {
+            if (salvoCounts[result.ordinal()] != 0) {
+                GameMetrics.countShots(result, salvoCounts[result.ordinal()]);
+                salvoCounts[result.ordinal()] = 0;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Torpedo attack method.
+     * If the shot hits a ship, the ship sinks at once.
+     *
+     * @param x the x coordinate of the cell.
+     * @param y the y coordinate of the cell.
+     * @return the result of the shot.
+     */
+    public ShotResult torpedo(int x, int y) {
+        if (fleet.getTorpedoesAmount() == 0) {
+            GameMetrics.countShot(ShotResult.noTorpedoes);
+            return ShotResult.noTorpedoes;
+        }
+        if (!isInside(x, y)) {
+            GameMetrics.countShot(ShotResult.invalid);
+            return ShotResult.invalid;
+        }
+        fleet.spendTorpedo();
+        GameMetrics.torpedoesUsed.increment();
+        ShotResult result = shoot(x, y);
+        if (result == ShotResult.hit) {
+            fleet.sink(lastAttackedShip);
+            battleField.changeMatrixAfterSunk(lastAttackedShip);
+            result = fleet.areAllShipsSunk() ? ShotResult.win : ShotResult.sunk;
+        }
+        record(x, y, true, result);
+        GameMetrics.countShot(result);
+        return result;
+    }
+
+    /**
+     * Appending the move to the log, moves that changed nothing are not recorded.
+     */
+    private void record(int x, int y, boolean isTorpedo, ShotResult result) {
+        if (moveLog != null && result != ShotResult.invalid && result != ShotResult.noTorpedoes) {
+            moveLog.append((long) x * battleField.sizeY + y, isTorpedo, result);
+        }
+    }
+
+    /**
+     * Setting the log where every move of the game is appended.
+     *
+     * @param moveLog the log or null to stop recording.
+     */
+    public void setMoveLog(MoveLog moveLog) {
+        this.moveLog = moveLog;
+    }
+
+    /**
+     * Getting the log of moves of the game.
+     *
+     * @return the log or null if moves are not recorded.
+     */
+    public MoveLog getMoveLog() {
+        return moveLog;
+    }
+
+    /**
+     * Check if the game is over.
+     *
+     * @return true if every ship is sunk.
+     */
+    public boolean isOver() {
+        return fleet.areAllShipsSunk();
+    }
+
+    /**
+     * Getting an amount of attacks made in the game.
+     *
+     * @return the amount of attacks.
+     */
+    public int getAttackCount() {
+        return attackCount;
+    }
+
+    /**
+     * Getting the ship which was hit last.
+     *
+     * @return the last attacked ship or null if no ship was hit yet.
+     */
+    public Ship getLastAttackedShip() {
+        return lastAttackedShip;
+    }
+
+    /**
+     * Restoring the progress of a saved game.
+     *
+     * @param attackCount      the amount of attacks made in the game.
+     * @param lastAttackedShip the ship which was hit last or null.
+     */
+    public void restoreProgress(int attackCount, Ship lastAttackedShip) {
+        this.attackCount = attackCount;
+        this.lastAttackedShip = lastAttackedShip;
+    }
+
+    /**
+     * Check if damaged ships are recovered after a miss.
+     *
+     * @return true if recovery mode is enabled.
+     */
+    public boolean isRecoveryModEnabled() {
+        return isRecoveryModEnabled;
+    }
+
+    private static BattleField createBattleField(GameConfig config, BoardPool pool) {
+        if (config.sizeX != pool.sizeX || config.sizeY != pool.sizeY) {
+            throw new IllegalArgumentException("Field size doesn't match the pool");
+        }
+        return new BattleField(pool);
+    }
+
+    /**
+     * Giving the pooled battlefield back to its pool, the game must not be used after that.
+     * Nothing happens for a game without the pool.
+     */
+    public void release() {
+        battleField.release();
+    }
+
+    /**
+     * Getting the seed of the random generator of the game.
+     *
+     * @return the seed or 0 if the game was created with a ready random generator.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Getting the parameters of the game.
+     *
+     * @return the game configuration.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Getting the battlefield of the game.
+     *
+     * @return the battlefield.
+     */
+    public BattleField getBattleField() {
+        return battleField;
+    }
+
+    /**
+     * Getting the fleet of the game.
+     *
+     * @return the fleet.
+     */
+    public Fleet getFleet() {
+        return fleet;
+    }
+
+    private boolean isInside(int x, int y) {
+        return x < battleField.sizeX && x >= 0 && y < battleField.sizeY && y >= 0;
+    }
+}
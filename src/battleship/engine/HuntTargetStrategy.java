@@ -0,0 +1,187 @@
+package battleship.engine;
+
+import battleship.enums.ShotResult;
+import battleship.models.BattleField;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Classic hunt and target strategy.
+ * While hunting it attacks cells of one colour of the chessboard in random order.
+ * After a hit it attacks the neighbours of the damaged ship until the ship sinks.
+ * Ships don't touch each other, so diagonal neighbours of hit cells and
+ * cells around sunken ships are known to be empty and are never attacked.
+ */
+public class HuntTargetStrategy implements ShootingStrategy {
+    private BattleField battleField;
+    private SplittableRandom rnd;
+    private int sizeX;
+    private int sizeY;
+    private int[] order;
+    private int next;
+    // Клетки, про которые известно, что там нет корабля
+    private boolean[] empty;
+    // Попадания по текущему кораблю
+    private int[] hits;
+    private int hitsCount;
+    private final int[] candidates = new int[4];
+
+    @Override
+    public void newGame(GameEngine engine, SplittableRandom rnd) {
+        this.rnd = rnd;
+        battleField = engine.getBattleField();
+        sizeX = battleField.sizeX;
+        sizeY = battleField.sizeY;
+        int cells = sizeX * sizeY;
+        if (order == null || order.length != cells) {
+            order = new int[cells];
+            empty = new boolean[cells];
+            hits = new int[cells];
+        }
+        // Сначала клетки одного цвета шахматной доски, затем остальные, каждая группа перемешана
+        int even = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if ((cell / sizeY + cell % sizeY) % 2 == 0) {
+                order[even++] = cell;
+            }
+        }
+        int odd = even;
+        for (int cell = 0; cell < cells; cell++) {
+            if ((cell / sizeY + cell % sizeY) % 2 == 1) {
+                order[odd++] = cell;
+            }
+        }
+        shuffle(0, even);
+        shuffle(even, cells);
+        Arrays.fill(empty, false);
+        next = 0;
+        hitsCount = 0;
+    }
+
+    @Override
+    public int nextShot() {
+        // После восстановления корабля сначала добиваются уже известные клетки
+        for (int i = 0; i < hitsCount; i++) {
+            if (!isAttacked(hits[i])) {
+                return hits[i];
+            }
+        }
+        if (hitsCount > 0) {
+            int count = collectTargets();
+            if (count > 0) {
+                return candidates[rnd.nextInt(count)];
+            }
+        }
+        while (next < order.length && (empty[order[next]] || isAttacked(order[next]))) {
+            next++;
+        }
+        if (next < order.length) {
+            return order[next];
+        }
+        // Сюда можно попасть только если уже пройденные клетки освободились после восстановления
+        for (int cell : order) {
+            if (!isAttacked(cell)) {
+                return cell;
+            }
+        }
+        return order[0];
+    }
+
+    @Override
+    public void onResult(int cell, ShotResult result) {
+        switch (result) {
+            case hit -> {
+                addHit(cell);
+                int x = cell / sizeY;
+                int y = cell % sizeY;
+                markEmpty(x - 1, y - 1);
+                markEmpty(x - 1, y + 1);
+                markEmpty(x + 1, y - 1);
+                markEmpty(x + 1, y + 1);
+            }
+            case sunk, win -> {
+                addHit(cell);
+                for (int i = 0; i < hitsCount; i++) {
+                    int x = hits[i] / sizeY;
+                    int y = hits[i] % sizeY;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            markEmpty(x + dx, y + dy);
+                        }
+                    }
+                }
+                hitsCount = 0;
+            }
+            case miss, recovered -> empty[cell] = true;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Collecting cells that can continue the damaged ship.
+     *
+     * @return the amount of collected cells.
+     */
+    private int collectTargets() {
+        int minX = sizeX;
+        int minY = sizeY;
+        int maxX = -1;
+        int maxY = -1;
+        for (int i = 0; i < hitsCount; i++) {
+            minX = Math.min(minX, hits[i] / sizeY);
+            maxX = Math.max(maxX, hits[i] / sizeY);
+            minY = Math.min(minY, hits[i] % sizeY);
+            maxY = Math.max(maxY, hits[i] % sizeY);
+        }
+        int count = 0;
+        if (minX == maxX) {
+            count = addTarget(count, minX, minY - 1);
+            count = addTarget(count, minX, maxY + 1);
+        }
+        if (minY == maxY) {
+            count = addTarget(count, minX - 1, minY);
+            count = addTarget(count, maxX + 1, minY);
+        }
+        return count;
+    }
+
+    private int addTarget(int count, int x, int y) {
+        if (x >= 0 && x < sizeX && y >= 0 && y < sizeY) {
+            int cell = x * sizeY + y;
+            if (!empty[cell] && !isAttacked(cell)) {
+                candidates[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    private void addHit(int cell) {
+        for (int i = 0; i < hitsCount; i++) {
+            if (hits[i] == cell) {
+                return;
+            }
+        }
+        hits[hitsCount++] = cell;
+    }
+
+    private void markEmpty(int x, int y) {
+        if (x >= 0 && x < sizeX && y >= 0 && y < sizeY) {
+            empty[x * sizeY + y] = true;
+        }
+    }
+
+    private boolean isAttacked(int cell) {
+        return battleField.isAttacked(cell / sizeY, cell % sizeY);
+    }
+
+    private void shuffle(int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + rnd.nextInt(i - from + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package battleship.engine;
+
+import battleship.enums.ShotResult;
+
+import java.util.Arrays;
+
+/**
+ * Append-only log of moves of one game.
+ * Every move is packed into one long: the cell index x * sizeY + y,
+ * one bit for the torpedo and the result of the move.
+ * Recovery and sinking are the results of the moves that caused them.
+ */
+public class MoveLog {
+    private static final ShotResult[] results = ShotResult.values();
+    private static final int RESULT_BITS = 4;
+    private static final int TORPEDO_BIT = 1 << RESULT_BITS;
+    private static final int CELL_SHIFT = RESULT_BITS + 1;
+
+    private long[] moves;
+    private int size;
+
+    /**
+     * MoveLog constructor.
+     */
+    public MoveLog() {
+        this(64);
+    }
+
+    /**
+     * MoveLog constructor.
+     *
+     * @param capacity expected amount of moves.
+     */
+    public MoveLog(int capacity) {
+        moves = new long[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appending the move.
+     *
+     * @param cell      the cell index x * sizeY + y.
+     * @param isTorpedo true if the move is a torpedo attack.
+     * @param result    the result of the move.
+     */
+    public void append(long cell, boolean isTorpedo, ShotResult result) {
+        appendPacked(cell << CELL_SHIFT | (isTorpedo ? TORPEDO_BIT : 0) | result.ordinal());
+    }
+
+    /**
+     * Appending the move packed as getPacked returns it.
+     *
+     * @param move the packed move.
+     */
+    public void appendPacked(long move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Getting the amount of moves.
+     *
+     * @return the amount of moves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getting the packed move.
+     *
+     * @param i number of the move from 0.
+     * @return the move packed into one long.
+     */
+    public long getPacked(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Getting the attacked cell of the move.
+     *
+     * @param i number of the move from 0.
+     * @return the cell index x * sizeY + y.
+     */
+    public long getCell(int i) {
+        return cellOf(moves[i]);
+    }
+
+    /**
+     * Check if the move was a torpedo attack.
+     *
+     * @param i number of the move from 0.
+     * @return true if the torpedo was used.
+     */
+    public boolean isTorpedo(int i) {
+        return isTorpedo(moves[i]);
+    }
+
+    /**
+     * Getting the result of the move.
+     *
+     * @param i number of the move from 0.
+     * @return the result.
+     */
+    public ShotResult getResult(int i) {
+        return resultOf(moves[i]);
+    }
+
+    /**
+     * Getting the attacked cell of the packed move.
+     *
+     * @param move the packed move.
+     * @return the cell index x * sizeY + y.
+     */
+    public static long cellOf(long move) {
+        return move >>> CELL_SHIFT;
+    }
+
+    /**
+     * Check if the packed move was a torpedo attack.
+     *
+     * @param move the packed move.
+     * @return true if the torpedo was used.
+     */
+    public static boolean isTorpedo(long move) {
+        return (move & TORPEDO_BIT) != 0;
+    }
+
+    /**
+     * Getting the result of the packed move.
+     *
+     * @param move the packed move.
+     * @return the result.
+     */
+    public static ShotResult resultOf(long move) {
+        return results[(int) (move & (TORPEDO_BIT - 1))];
+    }
+
+    /**
+     * Check if the packed move can belong to a game on the field of the given size.
+     *
+     * @param move  the packed move.
+     * @param cells amount of cells of the field.
+     * @return true if the cell is inside the field and the result is known.
+     */
+    public static boolean isValid(long move, long cells) {
+        return (move & (TORPEDO_BIT - 1)) < results.length && cellOf(move) < cells;
+    }
+
+    /**
+     * Forgetting all moves, the memory is kept for the next game.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
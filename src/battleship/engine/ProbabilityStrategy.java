@@ -0,0 +1,306 @@
+package battleship.engine;
+
+import battleship.enums.ShipType;
+import battleship.enums.ShotResult;
+import battleship.models.BattleField;
+import battleship.models.FleetConfig;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Hunt and target strategy driven by the density of possible ship positions.
+ * <p>
+ * For every ship type the strategy keeps how many still possible positions of that type
+ * cover every cell. A position is possible while none of its cells is known to be empty.
+ * The score of a cell is the sum of these counts weighted by the amounts of remaining ships.
+ * When a cell becomes known to be empty only the positions crossing this cell are removed,
+ * so the heatmap is never recounted from scratch during the game.
+ * <p>
+ * Ships don't touch each other, so diagonal neighbours of a hit and
+ * all neighbours of a sunken ship are known to be empty.
+ * In recovery mode a miss heals the damaged ship, so the cells of the damaged ship,
+ * which are still known, are attacked again before the ship is chased further.
+ */
+public class ProbabilityStrategy implements ShootingStrategy {
+    private static final ShipType[] types = ShipType.values();
+
+    private BattleField battleField;
+    private SplittableRandom rnd;
+    private int sizeX;
+    private int sizeY;
+    private int[] remaining;
+    // Клетки, про которые известно, что там нет непотопленного корабля
+    private boolean[] blocked;
+    // valid[t][o][origin] - возможна ли позиция корабля типа t с началом в origin, o: 0 - горизонталь, 1 - вертикаль
+    private boolean[][][] valid;
+    // heat[t][cell] - количество возможных позиций типа t, покрывающих клетку
+    private int[][] heat;
+    // score[cell] - сумма heat[t][cell] * remaining[t]
+    private int[] score;
+    // Известные клетки поврежденного корабля
+    private int[] known;
+    private int knownCount;
+    private int[] targetScore;
+    private int[] touched;
+
+    @Override
+    public void newGame(GameEngine engine, SplittableRandom rnd) {
+        this.rnd = rnd;
+        battleField = engine.getBattleField();
+        sizeX = battleField.sizeX;
+        sizeY = battleField.sizeY;
+        int cells = sizeX * sizeY;
+        if (score == null || score.length != cells) {
+            blocked = new boolean[cells];
+            valid = new boolean[types.length][2][cells];
+            heat = new int[types.length][cells];
+            score = new int[cells];
+            known = new int[cells];
+            targetScore = new int[cells];
+            touched = new int[cells];
+        }
+        FleetConfig config = engine.getFleet().getConfig();
+        remaining = new int[types.length];
+        for (ShipType type : types) {
+            remaining[type.ordinal()] = config.getAmount(type);
+        }
+        knownCount = 0;
+        Arrays.fill(blocked, false);
+        Arrays.fill(score, 0);
+        for (int t = 0; t < types.length; t++) {
+            Arrays.fill(heat[t], 0);
+            int size = types[t].getSize();
+            for (int o = 0; o < 2; o++) {
+                boolean[] v = valid[t][o];
+                for (int origin = 0; origin < cells; origin++) {
+                    v[origin] = fitsInside(origin, size, o) && (o == 0 || size > 1);
+                    if (v[origin]) {
+                        int step = o == 0 ? 1 : sizeY;
+                        for (int i = 0; i < size; i++) {
+                            heat[t][origin + i * step]++;
+                            score[origin + i * step] += remaining[t];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int nextShot() {
+        if (knownCount > 0) {
+            // После восстановления сначала добиваются уже известные клетки корабля
+            for (int i = 0; i < knownCount; i++) {
+                if (!isAttacked(known[i])) {
+                    return known[i];
+                }
+            }
+            int target = chooseTarget();
+            if (target >= 0) {
+                return target;
+            }
+        }
+        int best = -1;
+        int bestScore = -1;
+        int ties = 0;
+        for (int cell = 0; cell < score.length; cell++) {
+            if (blocked[cell] || isAttacked(cell)) {
+                continue;
+            }
+            if (score[cell] > bestScore) {
+                best = cell;
+                bestScore = score[cell];
+                ties = 1;
+            } else if (score[cell] == bestScore && rnd.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        if (best < 0) {
+            // Такого не бывает, пока игра не окончена, но на всякий случай стреляем в любую клетку
+            for (int cell = 0; cell < score.length; cell++) {
+                if (!isAttacked(cell)) {
+                    return cell;
+                }
+            }
+            return 0;
+        }
+        return best;
+    }
+
+    @Override
+    public void onResult(int cell, ShotResult result) {
+        switch (result) {
+            case hit -> {
+                addKnown(cell);
+                int x = cell / sizeY;
+                int y = cell % sizeY;
+                block(x - 1, y - 1);
+                block(x - 1, y + 1);
+                block(x + 1, y - 1);
+                block(x + 1, y + 1);
+            }
+            case sunk, win -> {
+                addKnown(cell);
+                for (int i = 0; i < knownCount; i++) {
+                    int x = known[i] / sizeY;
+                    int y = known[i] % sizeY;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            block(x + dx, y + dy);
+                        }
+                    }
+                }
+                removeShip(knownCount);
+                knownCount = 0;
+            }
+            case miss, recovered -> block(cell / sizeY, cell % sizeY);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Choosing the cell next to the damaged ship that continues it in the most possible positions.
+     *
+     * @return the cell or -1 if there is no possible position.
+     */
+    private int chooseTarget() {
+        int minX = sizeX;
+        int minY = sizeY;
+        int maxX = -1;
+        int maxY = -1;
+        for (int i = 0; i < knownCount; i++) {
+            minX = Math.min(minX, known[i] / sizeY);
+            maxX = Math.max(maxX, known[i] / sizeY);
+            minY = Math.min(minY, known[i] % sizeY);
+            maxY = Math.max(maxY, known[i] % sizeY);
+        }
+        int touchedCount = 0;
+        for (int t = 0; t < types.length; t++) {
+            int size = types[t].getSize();
+            if (remaining[t] == 0 || size < knownCount) {
+                continue;
+            }
+            for (int o = 0; o < 2; o++) {
+                // Все известные клетки должны лежать на одной линии позиции
+                if (o == 0 ? minX != maxX : minY != maxY) {
+                    continue;
+                }
+                int step = o == 0 ? 1 : sizeY;
+                int first = o == 0 ? minY : minX;
+                int last = o == 0 ? maxY : maxX;
+                for (int start = last - size + 1; start <= first; start++) {
+                    if (start < 0) {
+                        continue;
+                    }
+                    int origin = o == 0 ? minX * sizeY + start : start * sizeY + minY;
+                    if (!valid[t][o][origin]) {
+                        continue;
+                    }
+                    for (int i = 0; i < size; i++) {
+                        // Стрелять можно только рядом с известными клетками,
+                        // иначе можно попасть в другой корабль
+                        if (start + i != first - 1 && start + i != last + 1) {
+                            continue;
+                        }
+                        int c = origin + i * step;
+                        if (isAttacked(c)) {
+                            continue;
+                        }
+                        if (targetScore[c] == 0) {
+                            touched[touchedCount++] = c;
+                        }
+                        targetScore[c] += remaining[t];
+                    }
+                }
+            }
+        }
+        int best = -1;
+        int ties = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int c = touched[i];
+            if (best < 0 || targetScore[c] > targetScore[best]) {
+                best = c;
+                ties = 1;
+            } else if (targetScore[c] == targetScore[best] && rnd.nextInt(++ties) == 0) {
+                best = c;
+            }
+        }
+        int result = best;
+        for (int i = 0; i < touchedCount; i++) {
+            targetScore[touched[i]] = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Marking the cell as known to be empty and removing all positions crossing it.
+     */
+    private void block(int x, int y) {
+        if (x < 0 || x >= sizeX || y < 0 || y >= sizeY) {
+            return;
+        }
+        int cell = x * sizeY + y;
+        if (blocked[cell]) {
+            return;
+        }
+        blocked[cell] = true;
+        for (int t = 0; t < types.length; t++) {
+            int size = types[t].getSize();
+            for (int k = 0; k < size; k++) {
+                if (y - k >= 0) {
+                    invalidate(t, 0, cell - k);
+                }
+                if (x - k >= 0) {
+                    invalidate(t, 1, cell - k * sizeY);
+                }
+            }
+        }
+    }
+
+    private void invalidate(int t, int o, int origin) {
+        if (!valid[t][o][origin]) {
+            return;
+        }
+        valid[t][o][origin] = false;
+        int step = o == 0 ? 1 : sizeY;
+        for (int i = 0; i < types[t].getSize(); i++) {
+            heat[t][origin + i * step]--;
+            score[origin + i * step] -= remaining[t];
+        }
+    }
+
+    /**
+     * One ship of the given size is sunk, so its type weighs less in every cell.
+     */
+    private void removeShip(int size) {
+        for (int t = 0; t < types.length; t++) {
+            if (types[t].getSize() == size && remaining[t] > 0) {
+                remaining[t]--;
+                int[] h = heat[t];
+                for (int cell = 0; cell < score.length; cell++) {
+                    score[cell] -= h[cell];
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean fitsInside(int origin, int size, int o) {
+        return o == 0 ? origin % sizeY + size <= sizeY : origin / sizeY + size <= sizeX;
+    }
+
+    private void addKnown(int cell) {
+        for (int i = 0; i < knownCount; i++) {
+            if (known[i] == cell) {
+                return;
+            }
+        }
+        known[knownCount++] = cell;
+    }
+
+    private boolean isAttacked(int cell) {
+        return battleField.isAttacked(cell / sizeY, cell % sizeY);
+    }
+}
@@ -0,0 +1,80 @@
+package battleship.engine;
+
+import battleship.enums.ShotResult;
+import battleship.models.BattleField;
+
+import java.util.SplittableRandom;
+
+/**
+ * Attacks not yet attacked cells in random order.
+ * It is a baseline to compare other strategies with.
+ */
+public class RandomStrategy implements ShootingStrategy {
+    private BattleField battleField;
+    private int[] order;
+    private int next;
+    // Клетки поврежденного корабля, по которым надо выстрелить снова после его восстановления
+    private int[] hits;
+    private int[] retries;
+    private int hitsCount;
+    private int retryCount;
+
+    @Override
+    public void newGame(GameEngine engine, SplittableRandom rnd) {
+        battleField = engine.getBattleField();
+        int cells = battleField.sizeX * battleField.sizeY;
+        if (order == null || order.length != cells) {
+            order = new int[cells];
+            hits = new int[cells];
+            retries = new int[cells];
+        }
+        for (int i = 0; i < cells; i++) {
+            int j = rnd.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        next = 0;
+        hitsCount = 0;
+        retryCount = 0;
+    }
+
+    @Override
+    public int nextShot() {
+        while (retryCount > 0) {
+            int cell = retries[--retryCount];
+            if (!isAttacked(cell)) {
+                return cell;
+            }
+        }
+        // Восстановленные корабли могут освободить уже пройденные клетки, тогда порядок проходится заново
+        for (int pass = 0; pass < 2; pass++) {
+            while (next < order.length && isAttacked(order[next])) {
+                next++;
+            }
+            if (next < order.length) {
+                return order[next];
+            }
+            next = 0;
+        }
+        return order[0];
+    }
+
+    @Override
+    public void onResult(int cell, ShotResult result) {
+        switch (result) {
+            case hit -> hits[hitsCount++] = cell;
+            case sunk, win -> hitsCount = 0;
+            case recovered -> {
+                System.arraycopy(hits, 0, retries, 0, hitsCount);
+                retryCount = hitsCount;
+                hitsCount = 0;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private boolean isAttacked(int cell) {
+        return battleField.isAttacked(cell / battleField.sizeY, cell % battleField.sizeY);
+    }
+}
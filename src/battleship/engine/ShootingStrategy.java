@@ -0,0 +1,34 @@
+package battleship.engine;
+
+import battleship.enums.ShotResult;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy of choosing cells to attack.
+ * Cells are passed as indexes x * sizeY + y.
+ */
+public interface ShootingStrategy {
+    /**
+     * Preparing the strategy to a new game.
+     *
+     * @param engine the game to play, the fleet must be already placed.
+     * @param rnd    random generator the strategy may use during the game.
+     */
+    void newGame(GameEngine engine, SplittableRandom rnd);
+
+    /**
+     * Choosing the next cell to attack.
+     *
+     * @return the index of the cell.
+     */
+    int nextShot();
+
+    /**
+     * Notifying the strategy about the result of its shot.
+     *
+     * @param cell   the index of the attacked cell.
+     * @param result the result of the attack.
+     */
+    void onResult(int cell, ShotResult result);
+}
@@ -0,0 +1,44 @@
+package battleship.enums;
+
+public enum CommandType {
+    /**
+     * Attack of one cell, usual or by a torpedo.
+     */
+    attack,
+    /**
+     * Attack of many cells at once.
+     */
+    salvo,
+    /**
+     * Showing the field or its window.
+     */
+    show_field,
+    /**
+     * Advice of the endgame solver.
+     */
+    hint,
+    /**
+     * Showing the ships, for testing.
+     */
+    show_fleet,
+    /**
+     * Leaving the game.
+     */
+    exit,
+    /**
+     * Saving the game into a file.
+     */
+    save,
+    /**
+     * Loading the game from a file.
+     */
+    load,
+    /**
+     * Saving the seed and the moves of the game into a file.
+     */
+    save_record,
+    /**
+     * Showing the available commands.
+     */
+    help
+}
@@ -0,0 +1,16 @@
+package battleship.enums;
+
+public enum Feasibility {
+    /**
+     * A placement of the fleet was found without the search.
+     */
+    feasible,
+    /**
+     * The fleet can't be placed, it is proven without the search.
+     */
+    infeasible,
+    /**
+     * Only the search can tell if the fleet can be placed.
+     */
+    unknown
+}
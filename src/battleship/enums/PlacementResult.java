@@ -0,0 +1,16 @@
+package battleship.enums;
+
+public enum PlacementResult {
+    /**
+     * Every ship of the fleet got its coordinates.
+     */
+    placed,
+    /**
+     * The search was exhausted, so there is no way to place the fleet.
+     */
+    infeasible,
+    /**
+     * The search was stopped because the steps limit was exceeded.
+     */
+    budgetExhausted
+}
@@ -1,39 +1,17 @@
 package battleship.enums;
 
 public enum ShipType {
-    Carrier(5, 0),
-    Battleship(4, 0),
-    Cruiser(3, 0),
-    Destroyer(2, 0),
-    Submarine(1, 0);
+    Carrier(5),
+    Battleship(4),
+    Cruiser(3),
+    Destroyer(2),
+    Submarine(1);
 
 
     private final int size;
-    private int amount;
 
-    ShipType(int size, int amount) {
+    ShipType(int size) {
         this.size = size;
-        this.amount = amount;
-    }
-
-    /**
-     * Getting an amount of ships
-     *
-     * @return the sum of amounts of ship types
-     */
-    public static int getWholeAmount() {
-        return Carrier.getAmount() + Battleship.getAmount() +
-                Cruiser.getAmount() + Destroyer.getAmount() +
-                Submarine.getAmount();
-    }
-
-    /**
-     * Setting an amount of ShipType
-     *
-     * @param amount amount you want to set
-     */
-    public void setAmount(int amount) {
-        this.amount = amount;
     }
 
     /**
@@ -44,13 +22,4 @@ public enum ShipType {
     public int getSize() {
         return size;
     }
-
-    /**
-     * Getting an amount of ships of definite ship type.
-     *
-     * @return the amount.
-     */
-    public int getAmount() {
-        return amount;
-    }
 }
@@ -0,0 +1,36 @@
+package battleship.enums;
+
+public enum ShotResult {
+    /**
+     * The shot didn't hit anything.
+     */
+    miss,
+    /**
+     * The shot hit a ship, but the ship is still afloat.
+     */
+    hit,
+    /**
+     * The shot sank a ship.
+     */
+    sunk,
+    /**
+     * The shot sank the last ship of the fleet.
+     */
+    win,
+    /**
+     * The cell was already attacked.
+     */
+    repeat,
+    /**
+     * The shot missed and the damaged ship was recovered due to recovery mode.
+     */
+    recovered,
+    /**
+     * The coordinates are out of the battlefield.
+     */
+    invalid,
+    /**
+     * There are no torpedoes left.
+     */
+    noTorpedoes
+}
@@ -0,0 +1,129 @@
+package battleship.load;
+
+import java.io.IOException;
+
+/**
+ * Histogram of latencies in nanoseconds with relative precision better than 1%.
+ * Values below 256 have their own buckets, bigger values are grouped by powers of two
+ * and every power of two is split into 128 equal buckets, as HDR histograms do.
+ * Recording is a few arithmetic operations and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Значения меньше этого лежат каждое в своей корзине
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = EXACT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Recording one latency.
+     *
+     * @param nanos the latency, negative values are counted as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adding all values of another histogram.
+     *
+     * @param other the histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Getting the value below which the given share of values lies.
+     *
+     * @param p share of values from 0 to 1.
+     * @return the biggest value of the bucket where the percentile lies, but not more than the maximum.
+     */
+    public long getPercentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writing the histogram as CSV: the biggest value of every non-empty bucket,
+     * amount of values in it, amount of values up to it and the percentile.
+     *
+     * @param out where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("latency_ns,count,cumulative_count,percentile").append(System.lineSeparator());
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            seen += counts[i];
+            out.append(Long.toString(Math.min(highestValueOf(i), max))).append(',')
+                    .append(Long.toString(counts[i])).append(',')
+                    .append(Long.toString(seen)).append(',')
+                    .append(String.format("%.4f", 100.0 * seen / count))
+                    .append(System.lineSeparator());
+        }
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long mantissa = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,392 @@
+package battleship.load;
+
+import battleship.engine.GameEngine;
+import battleship.enums.PlacementResult;
+import battleship.models.BattleField;
+import battleship.models.BoardPool;
+import battleship.models.Game;
+import battleship.models.GameConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the command protocol.
+ * Simulated players send attack commands at the target rate, either to games in this process
+ * or to a local server over TCP, and the time until the answer of every command is recorded.
+ * <p>
+ * The load is open: the time of every command is planned in advance and the latency is counted
+ * from the planned time, not from the real sending. So if the games can't keep up, the waiting
+ * before sending gets into the latency too, instead of just slowing the generator down.
+ */
+public class LoadGenerator {
+    private final GameConfig config;
+    private final int players;
+    private final double rate;
+    private final long durationNanos;
+    private final boolean isFieldShown;
+    private final long seed;
+    // Поля игр в этом процессе лежат вне кучи, как на сервере
+    private final BoardPool boardPool;
+
+    /**
+     * LoadGenerator constructor.
+     *
+     * @param config       parameters of the games.
+     * @param players      amount of simulated players, every one plays its own game.
+     * @param rate         amount of commands per second of all players, 0 means as fast as possible.
+     * @param seconds      duration of the load.
+     * @param isFieldShown if true the field is shown before every attack, as the console game does.
+     * @param seed         seed of the games and the attacks.
+     */
+    public LoadGenerator(GameConfig config, int players, double rate, double seconds,
+                         boolean isFieldShown, long seed) {
+        this.config = config;
+        this.players = players;
+        this.rate = rate;
+        this.durationNanos = (long) (seconds * 1e9);
+        this.isFieldShown = isFieldShown;
+        this.seed = seed;
+        boardPool = (long) config.sizeX * config.sizeY <= BattleField.MAX_DENSE_CELLS
+                ? new BoardPool(config.sizeX, config.sizeY)
+                : null;
+    }
+
+    /**
+     * Running the load against games in this process, commands are executed by Game as the server does.
+     *
+     * @param threads amount of threads, players are spread over them.
+     * @return latencies and throughput.
+     * @throws Exception throws if the fleet can't be placed.
+     */
+    public LoadReport runInProcess(int threads) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Callable<LoadReport>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new InProcessWorker(rnd.split(), playersOf(i, threads), threads));
+        }
+        return run(workers);
+    }
+
+    /**
+     * Running the load against a server, every player has its own connection.
+     *
+     * @param address address of the server.
+     * @param threads amount of threads, players are spread over them.
+     * @return latencies and throughput.
+     * @throws Exception throws if the server isn't available.
+     */
+    public LoadReport runOverTcp(InetSocketAddress address, int threads) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Callable<LoadReport>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new TcpWorker(address, rnd.split(), playersOf(i, threads), threads));
+        }
+        return run(workers);
+    }
+
+    private int playersOf(int worker, int threads) {
+        return players / threads + (worker < players % threads ? 1 : 0);
+    }
+
+    private LoadReport run(List<Callable<LoadReport>> workers) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(workers.size());
+        try {
+            long start = System.nanoTime();
+            List<Future<LoadReport>> futures = pool.invokeAll(workers);
+            LoadReport report = new LoadReport();
+            for (Future<LoadReport> future : futures) {
+                report.add(future.get());
+            }
+            report.setElapsedNanos(System.nanoTime() - start);
+            return report;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Getting the interval between planned commands of one worker.
+     */
+    private long intervalOf(int threads) {
+        return rate > 0 ? (long) (1e9 * threads / rate) : 0;
+    }
+
+    private GameEngine newEngine(SplittableRandom rnd) throws Exception {
+        GameEngine engine = boardPool != null
+                ? new GameEngine(config, rnd.nextLong(), boardPool)
+                : new GameEngine(config, rnd.nextLong());
+        if (engine.placeFleet() != PlacementResult.placed) {
+            engine.release();
+            throw new Exception("Unable to set coordinates");
+        }
+        return engine;
+    }
+
+    /**
+     * Players of one thread playing games in this process.
+     */
+    private class InProcessWorker implements Callable<LoadReport> {
+        private final SplittableRandom rnd;
+        private final SimulatedPlayer[] moves;
+        private final Game[] games;
+        private final StringBuilder output = new StringBuilder(1 << 12);
+        private final StringBuilder command = new StringBuilder(32);
+        private final long interval;
+
+        InProcessWorker(SplittableRandom rnd, int players, int threads) throws Exception {
+            this.rnd = rnd;
+            moves = new SimulatedPlayer[players];
+            games = new Game[players];
+            for (int i = 0; i < players; i++) {
+                moves[i] = new SimulatedPlayer(config, rnd.split());
+                games[i] = new Game(newEngine(rnd), output);
+            }
+            interval = intervalOf(threads);
+        }
+
+        @Override
+        public LoadReport call() throws Exception {
+            LoadReport report = new LoadReport();
+            if (games.length == 0) {
+                return report;
+            }
+            long start = System.nanoTime();
+            long end = start + durationNanos;
+            long planned = start + rnd.nextLong(Math.max(1, interval));
+            int turn = 0;
+            while (true) {
+                long now = System.nanoTime();
+                if (now >= end) {
+                    break;
+                }
+                if (interval == 0) {
+                    planned = now;
+                } else if (now < planned) {
+                    LockSupport.parkNanos(Math.min(planned, end) - now);
+                    continue;
+                }
+                moves[turn].nextCommand(command);
+                if (isFieldShown) {
+                    games[turn].executeCommand("show_field");
+                }
+                games[turn].executeCommand(command);
+                report.record(System.nanoTime() - planned);
+                output.setLength(0);
+                if (games[turn].isFinished()) {
+                    report.countGame();
+                    games[turn].getEngine().release();
+                    games[turn] = new Game(newEngine(rnd), output);
+                    moves[turn].newGame();
+                }
+                turn = (turn + 1) % games.length;
+                planned += interval;
+            }
+            for (Game game : games) {
+                game.getEngine().release();
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Players of one thread connected to the server, all connections are served by one selector.
+     */
+    private class TcpWorker implements Callable<LoadReport> {
+        private final byte[] prompt = "Enter command: ".getBytes(StandardCharsets.US_ASCII);
+        private final InetSocketAddress address;
+        private final SplittableRandom rnd;
+        private final int players;
+        private final long interval;
+        private final ByteBuffer in = ByteBuffer.allocate(1 << 16);
+        private final StringBuilder command = new StringBuilder(32);
+        // Игроки, получившие ответ и ждущие своей очереди
+        private final ArrayDeque<Connection> ready = new ArrayDeque<>();
+        private Selector selector;
+
+        TcpWorker(InetSocketAddress address, SplittableRandom rnd, int players, int threads) {
+            this.address = address;
+            this.rnd = rnd;
+            this.players = players;
+            interval = intervalOf(threads);
+        }
+
+        @Override
+        public LoadReport call() throws Exception {
+            LoadReport report = new LoadReport();
+            selector = Selector.open();
+            try {
+                for (int i = 0; i < players; i++) {
+                    connect(new SimulatedPlayer(config, rnd.split()));
+                }
+                long start = System.nanoTime();
+                long end = start + durationNanos;
+                long planned = start + rnd.nextLong(Math.max(1, interval));
+                while (true) {
+                    long now = System.nanoTime();
+                    if (now >= end) {
+                        break;
+                    }
+                    while (!ready.isEmpty() && (interval == 0 || planned <= now)) {
+                        send(ready.poll(), interval == 0 ? now : planned);
+                        planned += interval;
+                    }
+                    long wait = ready.isEmpty() || interval == 0 ? end - now : Math.min(planned, end) - now;
+                    if (wait < 1_000_000) {
+                        selector.selectNow();
+                    } else {
+                        selector.select(wait / 1_000_000);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        read((Connection) key.attachment(), report);
+                    }
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+            return report;
+        }
+
+        private void connect(SimulatedPlayer moves) throws IOException {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel, moves);
+            // Первое приглашение приходит после приветствия, его время не записываем
+            connection.awaited = 1;
+            connection.planned = -1;
+            channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+
+        private void send(Connection connection, long planned) throws IOException {
+            connection.moves.nextCommand(command);
+            if (isFieldShown) {
+                command.insert(0, "show_field\n");
+            }
+            command.append('\n');
+            ByteBuffer out = ByteBuffer.wrap(command.toString().getBytes(StandardCharsets.US_ASCII));
+            while (out.hasRemaining()) {
+                // Команда короткая и почти всегда уходит за одну запись
+                connection.channel.write(out);
+            }
+            connection.planned = planned;
+            connection.awaited = isFieldShown ? 2 : 1;
+        }
+
+        private void read(Connection connection, LoadReport report) throws IOException {
+            in.clear();
+            int read = connection.channel.read(in);
+            if (read < 0) {
+                // Сервер закрывает соединение после победы, начинаем новую игру
+                if (connection.planned >= 0) {
+                    report.record(System.nanoTime() - connection.planned);
+                }
+                report.countGame();
+                connection.channel.close();
+                connection.moves.newGame();
+                connect(connection.moves);
+                return;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = in.get(i);
+                if (b == prompt[connection.matched]) {
+                    connection.matched++;
+                } else {
+                    connection.matched = b == prompt[0] ? 1 : 0;
+                }
+                if (connection.matched == prompt.length) {
+                    connection.matched = 0;
+                    if (--connection.awaited == 0) {
+                        if (connection.planned >= 0) {
+                            report.record(System.nanoTime() - connection.planned);
+                        }
+                        ready.add(connection);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Connection of one simulated player.
+     */
+    private static class Connection {
+        private final SocketChannel channel;
+        private final SimulatedPlayer moves;
+        // Сколько приглашений осталось дождаться до конца ответа
+        private int awaited;
+        private int matched;
+        private long planned;
+
+        Connection(SocketChannel channel, SimulatedPlayer moves) {
+            this.channel = channel;
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * Running the load from the command line.
+     * Parameters are the target ('local' for games in this process or host:port of a server),
+     * the amount of players, the rate, the duration in seconds, then all 9 game parameters,
+     * optionally 'on' to show the field before every attack and the CSV file for the histogram.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            String target = args[0];
+            int players = Integer.parseInt(args[1]);
+            double rate = Double.parseDouble(args[2]);
+            double seconds = Double.parseDouble(args[3]);
+            GameConfig config = GameConfig.tryParseCommandLineParams(Arrays.copyOfRange(args, 4, 13));
+            boolean isFieldShown = args.length > 13 && args[13].equals("on");
+            if (players <= 0 || rate < 0 || seconds <= 0) {
+                throw new Exception("Incorrect load parameters");
+            }
+            int threads = Math.min(players, Runtime.getRuntime().availableProcessors());
+            LoadGenerator generator = new LoadGenerator(config, players, rate, seconds, isFieldShown, System.nanoTime());
+            LoadReport report;
+            if (target.equals("local")) {
+                report = generator.runInProcess(threads);
+            } else {
+                int colon = target.lastIndexOf(':');
+                InetSocketAddress address = new InetSocketAddress(target.substring(0, colon),
+                        Integer.parseInt(target.substring(colon + 1)));
+                report = generator.runOverTcp(address, threads);
+            }
+            System.out.println(target);
+            System.out.print(report);
+            if (args.length > 14) {
+                report.writeCsv(Path.of(args[14]));
+                System.out.println("Histogram is written to " + args[14]);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect load parameters" : ex.getMessage());
+            System.out.println("Usage: --load local|host:port players rate seconds sizeX sizeY carriers battleships "
+                    + "cruisers destroyers submarines torpedoes recovery [field [csvFile]]");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package battleship.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Latencies and throughput of one load run.
+ */
+public class LoadReport {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long games;
+    private long elapsedNanos;
+
+    void record(long latencyNanos) {
+        histogram.record(latencyNanos);
+    }
+
+    void countGame() {
+        games++;
+    }
+
+    void add(LoadReport other) {
+        histogram.add(other.histogram);
+        games += other.games;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Getting latencies of all answered commands.
+     *
+     * @return the histogram in nanoseconds.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Getting an amount of answered commands.
+     *
+     * @return the amount of commands.
+     */
+    public long getCommands() {
+        return histogram.getCount();
+    }
+
+    /**
+     * Getting an amount of games won by simulated players.
+     *
+     * @return the amount of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Getting the amount of answered commands per second.
+     *
+     * @return the throughput.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getCommands() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Writing the latency histogram into a CSV file.
+     *
+     * @param path the file.
+     * @throws IOException throws if the file can't be written.
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            histogram.writeCsv(writer);
+        }
+    }
+
+    /**
+     * @return text view of the report, latencies are in microseconds.
+     */
+    @Override
+    public String toString() {
+        return String.format("\tcommands\t-\t%d (games won %d)%n", getCommands(), games)
+                + String.format("\tthroughput\t-\t%.0f commands/s%n", getThroughput())
+                + String.format("\tmean\t-\t%.1f us%n", histogram.getMean() / 1e3)
+                + String.format("\tp50/p99/p999/max\t-\t%.1f/%.1f/%.1f/%.1f us%n",
+                histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3,
+                histogram.getPercentile(0.999) / 1e3, histogram.getMax() / 1e3);
+    }
+}
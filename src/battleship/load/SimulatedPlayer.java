@@ -0,0 +1,63 @@
+package battleship.load;
+
+import battleship.models.GameConfig;
+
+import java.util.SplittableRandom;
+
+/**
+ * Choosing commands of one simulated player.
+ * Cells are attacked in random order without repeats, some attacks are torpedo ones while torpedoes remain.
+ */
+class SimulatedPlayer {
+    static final int TORPEDO_PERCENT = 10;
+
+    private final GameConfig config;
+    private final SplittableRandom rnd;
+    private final int[] cells;
+    private int next;
+    private int torpedoesLeft;
+
+    SimulatedPlayer(GameConfig config, SplittableRandom rnd) {
+        this.config = config;
+        this.rnd = rnd;
+        cells = new int[config.sizeX * config.sizeY];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        newGame();
+    }
+
+    /**
+     * Forgetting the attacked cells before the next game.
+     */
+    void newGame() {
+        next = 0;
+        torpedoesLeft = config.fleetConfig.getTorpedoesAmount();
+    }
+
+    /**
+     * Writing the next attack command.
+     *
+     * @param sb where to write, it is cleared before.
+     */
+    void nextCommand(StringBuilder sb) {
+        if (next == cells.length) {
+            // В режиме восстановления клеток может не хватить, начинаем обход заново
+            next = 0;
+        }
+        // Перемешиваем по ходу игры, чтобы не тасовать весь массив заранее
+        int j = next + rnd.nextInt(cells.length - next);
+        int cell = cells[j];
+        cells[j] = cells[next];
+        cells[next++] = cell;
+
+        sb.setLength(0);
+        sb.append("attack ");
+        if (torpedoesLeft > 0 && rnd.nextInt(100) < TORPEDO_PERCENT) {
+            torpedoesLeft--;
+            sb.append("-T ");
+        }
+        // Координаты в командах считаются с 1
+        sb.append(cell / config.sizeY + 1).append(' ').append(cell % config.sizeY + 1);
+    }
+}
@@ -0,0 +1,76 @@
+package battleship.metrics;
+
+import battleship.enums.PlacementResult;
+import battleship.enums.ShotResult;
+
+/**
+ * Metrics of the game kept in constants, so the hot paths don't look them up by name.
+ */
+public final class GameMetrics {
+    private static final MetricsRegistry registry = MetricsRegistry.getDefault();
+
+    /**
+     * Positions checked by all placements.
+     */
+    public static final Counter placementSteps = registry.counter("placement.steps");
+    /**
+     * Searches started again because the previous search exceeded its part of the steps limit.
+     */
+    public static final Counter placementRestarts = registry.counter("placement.restarts");
+    /**
+     * Ships removed from the field by restarts, the ships placed before them stay.
+     */
+    public static final Counter placementUndoneShips = registry.counter("placement.undone");
+    /**
+     * Placements rejected by the feasibility check without the search.
+     */
+    public static final Counter placementRejections = registry.counter("placement.rejected");
+    public static final Timer placementTime = registry.timer("placement.time");
+    public static final Counter torpedoesUsed = registry.counter("torpedoes.used");
+    public static final Timer attackTime = registry.timer("command.attack.time");
+    public static final Timer salvoTime = registry.timer("command.salvo.time");
+    public static final Timer renderTime = registry.timer("render.time");
+
+    private static final Counter[] placements = new Counter[PlacementResult.values().length];
+    private static final Counter[] shots = new Counter[ShotResult.values().length];
+
+    static {
+        for (PlacementResult result : PlacementResult.values()) {
+            placements[result.ordinal()] = registry.counter("placement." + result);
+        }
+        for (ShotResult result : ShotResult.values()) {
+            shots[result.ordinal()] = registry.counter("shots." + result);
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Counting the finished placement by its result.
+     *
+     * @param result the result of the placement.
+     */
+    public static void countPlacement(PlacementResult result) {
+        placements[result.ordinal()].increment();
+    }
+
+    /**
+     * Counting the shot by its result.
+     *
+     * @param result the result of the shot.
+     */
+    public static void countShot(ShotResult result) {
+        shots[result.ordinal()].increment();
+    }
+
+    /**
+     * Counting many shots with the same result.
+     *
+     * @param result the result of the shots.
+     * @param amount amount of the shots.
+     */
+    public static void countShots(ShotResult result, long amount) {
+        shots[result.ordinal()].add(amount);
+    }
+}
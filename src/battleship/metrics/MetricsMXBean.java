@@ -0,0 +1,28 @@
+package battleship.metrics;
+
+import java.util.Map;
+
+/**
+ * View of the metrics registry for JMX clients such as jconsole.
+ */
+public interface MetricsMXBean {
+    /**
+     * Getting values of all counters and timers,
+     * every timer gives its count, total and maximum in nanoseconds.
+     *
+     * @return values by names.
+     */
+    Map<String, Long> getValues();
+
+    /**
+     * Getting the same text as the periodic dump.
+     *
+     * @return the text view of all metrics.
+     */
+    String getDump();
+
+    /**
+     * Setting all metrics to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,127 @@
+package battleship.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Named counters and timers of the process.
+ * Metrics are looked up by name once and then kept in fields,
+ * so the hot paths only increase LongAdder cells and never touch the map.
+ */
+public class MetricsRegistry implements MetricsMXBean {
+    /**
+     * Name of the registry in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "battleship:type=Metrics";
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Getting the registry shared by the whole process.
+     *
+     * @return the registry.
+     */
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+    /**
+     * Getting the counter, it is created on the first call.
+     *
+     * @param name name of the counter.
+     * @return the counter.
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    /**
+     * Getting the timer, it is created on the first call.
+     *
+     * @param name name of the timer.
+     * @return the timer.
+     */
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    @Override
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        timers.forEach((name, timer) -> {
+            values.put(name + ".count", timer.getCount());
+            values.put(name + ".totalNanos", timer.getTotalNanos());
+            values.put(name + ".maxNanos", timer.getMaxNanos());
+        });
+        return values;
+    }
+
+    @Override
+    public String getDump() {
+        StringBuilder sb = new StringBuilder();
+        counters.forEach((name, counter) -> sb.append(String.format("\t%s\t-\t%d%n", name, counter.get())));
+        timers.forEach((name, timer) -> sb.append(String.format("\t%s\t-\t%d, mean %.1f us, max %.1f us%n",
+                name, timer.getCount(), timer.getMeanNanos() / 1e3, timer.getMaxNanos() / 1e3)));
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        timers.values().forEach(Timer::reset);
+    }
+
+    /**
+     * Registering the registry in the platform MBean server, so it can be read by JMX clients.
+     * Repeated calls do nothing.
+     *
+     * @throws Exception throws if the registry can't be registered.
+     */
+    public synchronized void registerMBean() throws Exception {
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    /**
+     * Writing the dump of all metrics periodically in a background thread.
+     * The previous periodic dump is stopped.
+     *
+     * @param out     where to write.
+     * @param seconds the period.
+     */
+    public synchronized void startDump(PrintStream out, long seconds) {
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "battleship-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print("metrics" + System.lineSeparator() + getDump()),
+                seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stopping the periodic dump.
+     */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+}
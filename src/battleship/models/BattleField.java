@@ -1,15 +1,98 @@
 package battleship.models;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
 
+/**
+ * The ocean of the game.
+ * Every state of cells is kept in its own bit plane, one bit per cell,
+ * cells go row by row, so the cell (x, y) is the bit number x * sizeY + y of the plane.
+ * Fields bigger than MAX_DENSE_CELLS keep their planes in chunks allocated only where ships,
+ * their halo or shots are, so a huge ocean with a few ships costs as much as the ships.
+ */
 public class BattleField {
+    // Номера битовых плоскостей
+    private static final int SHIP = 0;
+    private static final int HALO = 1;
+    private static final int HIT = 2;
+    private static final int MISS = 3;
+    private static final int SUNK = 4;
+    static final int PLANES = 5;
+    /**
+     * The biggest amount of cells of a field whose planes are allocated at once.
+     */
+    public static final long MAX_DENSE_CELLS = 1L << 24;
+
     public final int sizeX;
     public final int sizeY;
-    public final int[][] matrix;
+    private final long planeWords;
+    private final boolean isChunked;
+    private final BitPlanes planes;
+    // Слот пула, в котором лежат плоскости, или -1, если поле в куче или уже освобождено
+    private final BoardPool pool;
+    private int slot = -1;
+    // Шаблоны масок кораблей по длине, берутся из кэша при первой расстановке
+    private PlacementTemplate[] templates = new PlacementTemplate[0];
 
     public BattleField(String[] args) {
-        sizeX = Integer.parseInt(args[0]);
-        sizeY = Integer.parseInt(args[1]);
-        matrix = new int[sizeX][sizeY];
+        this(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    }
+
+    /**
+     * BattleField constructor.
+     *
+     * @param sizeX amount of rows.
+     * @param sizeY amount of columns.
+     */
+    public BattleField(int sizeX, int sizeY) {
+        if (sizeX <= 0 || sizeY <= 0) {
+            throw new IllegalArgumentException("Field size must be positive");
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        planeWords = ((long) sizeX * sizeY + 63) >>> 6;
+        isChunked = (long) sizeX * sizeY > MAX_DENSE_CELLS;
+        planes = BitPlanes.create(PLANES, planeWords, isChunked);
+        pool = null;
+    }
+
+    /**
+     * BattleField constructor taking its planes from a slot of the pool instead of the heap.
+     * The slot must be given back by release when the game ends.
+     *
+     * @param pool the pool of battlefields of the same size.
+     */
+    public BattleField(BoardPool pool) {
+        sizeX = pool.sizeX;
+        sizeY = pool.sizeY;
+        planeWords = pool.planeWords;
+        isChunked = false;
+        this.pool = pool;
+        slot = pool.acquire();
+        planes = BitPlanes.wrap(PLANES, planeWords, pool.getPlanes(slot));
+    }
+
+    /**
+     * Giving the slot of a pooled battlefield back to the pool, nothing happens for other battlefields.
+     * The pooled battlefield must not be used after that, repeated calls do nothing.
+     */
+    public void release() {
+        if (slot >= 0) {
+            pool.release(slot);
+            slot = -1;
+        }
+    }
+
+    /**
+     * Getting the ship numbers of cells kept in the slot of a pooled battlefield.
+     *
+     * @return the numbers or null if the battlefield isn't pooled.
+     */
+    IntBuffer getPooledShipIndex() {
+        return slot >= 0 ? pool.getShipIndex(slot) : null;
     }
 
     /**
@@ -28,141 +111,336 @@ public class BattleField {
     }
 
     /**
-     * Make all elements of matrix equal to zero.
+     * Make all cells of the battlefield empty.
+     * Chunked planes clear only the chunks that were allocated.
      */
     public void clearMatrix() {
-        for (int i = 0; i < sizeX; i++) {
-            for (int j = 0; j < sizeY; j++) {
-                matrix[i][j] = 0;
+        planes.clear();
+    }
+
+    /**
+     * Check if the planes of the battlefield are allocated by chunks.
+     *
+     * @return true if the field is bigger than MAX_DENSE_CELLS.
+     */
+    public boolean isChunked() {
+        return isChunked;
+    }
+
+    /**
+     * Creating an empty plane of the same size and storage as the planes of the battlefield.
+     */
+    BitPlanes createPlane() {
+        return BitPlanes.create(1, planeWords, isChunked);
+    }
+
+    /**
+     * Writing the plane of cells where a ship can't be placed: ships and their halo.
+     * Only the allocated words of the battlefield are read.
+     *
+     * @param into the plane created by createPlane.
+     * @return amount of blocked cells.
+     */
+    long readBlocked(BitPlanes into) {
+        into.clear();
+        long count = 0;
+        for (int r = 0; r < planes.getRanges(); r++) {
+            long from = planes.getRangeStart(r);
+            long to = from + planes.getRangeWords(r);
+            for (long w = from; w < to; w++) {
+                long blocked = planes.get(SHIP, w) | planes.get(HALO, w);
+                into.or(0, w, blocked);
+                count += Long.bitCount(blocked);
             }
         }
+        return count;
+    }
+
+    /**
+     * Getting the amount of words needed to save all bit planes.
+     *
+     * @return the amount of long values written by savePlanes.
+     */
+    public int getSavedWords() {
+        return planes.getSavedWords();
     }
 
-    // Метод изменяет матрицу таким образом,
-    // чтобы на месте расположения судна оказались 9, а в ячейках рядом - 8
+    /**
+     * Writing all bit planes of the battlefield.
+     * Dense planes are written word by word, chunked planes are written as the list of their chunks.
+     *
+     * @param out where to write, it must have getSavedWords free values.
+     */
+    public void savePlanes(LongBuffer out) {
+        planes.save(out);
+    }
+
+    /**
+     * Reading all bit planes of the battlefield written by savePlanes
+     * for a battlefield of the same size.
+     *
+     * @param in where to read from.
+     * @throws Exception throws if the values are not the planes of such battlefield.
+     */
+    public void loadPlanes(LongBuffer in) throws Exception {
+        planes.load(in);
+    }
+
+    /**
+     * Check if there is a ship in the cell.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if a ship stands in the cell, whether it was attacked or not.
+     */
+    public boolean isShip(int x, int y) {
+        return get(SHIP, bit(x, y));
+    }
+
+    /**
+     * Check if it is forbidden to place a ship in the cell.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if there is a ship in the cell or nearby.
+     */
+    public boolean isBlocked(int x, int y) {
+        long bit = bit(x, y);
+        return get(SHIP, bit) || get(HALO, bit);
+    }
+
+    /**
+     * Check if the cell was already attacked.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if the cell is hit, missed or belongs to a sunken ship.
+     */
+    public boolean isAttacked(int x, int y) {
+        long bit = bit(x, y);
+        return get(HIT, bit) || get(MISS, bit) || get(SUNK, bit);
+    }
+
+    /**
+     * Check if the cell contains a ship that can still be hit.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if there is a ship in the cell and the cell wasn't attacked.
+     */
+    public boolean isIntactShip(int x, int y) {
+        long bit = bit(x, y);
+        return get(SHIP, bit) && !get(HIT, bit) && !get(SUNK, bit);
+    }
+
+    /**
+     * Mark the cell as hit.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     */
+    public void markHit(int x, int y) {
+        set(HIT, bit(x, y));
+    }
+
+    /**
+     * Mark the cell as missed.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     */
+    public void markMiss(int x, int y) {
+        set(MISS, bit(x, y));
+    }
 
     /**
-     * Change value of elements of matrix in such a way that
-     * so that at the location of the vessel there are 9, and in the cells nearby - 8.
+     * Change the battlefield in such a way that
+     * the cells of the vessel are ships and the cells nearby are its halo.
+     * Ship is a straight line, so it is marked by the masks of the placement template of its length.
      *
      * @param coordinates coordinates of last added vessel
      */
     public void changeMatrixAfterAddingShips(Coordinate[] coordinates) {
+        int minX = sizeX;
+        int minY = sizeY;
+        int maxX = -1;
+        int maxY = -1;
         for (Coordinate c : coordinates) {
-            matrix[c.x][c.y] = 9;
+            minX = Math.min(minX, c.x);
+            minY = Math.min(minY, c.y);
+            maxX = Math.max(maxX, c.x);
+            maxY = Math.max(maxY, c.y);
         }
-        for (Coordinate c : coordinates) {
-            if (c.x - 1 >= 0) {
-                if (matrix[c.x - 1][c.y] != 9) {
-                    matrix[c.x - 1][c.y] = 8;
-                }
-                if (c.y - 1 >= 0) {
-                    if (matrix[c.x - 1][c.y - 1] != 9) {
-                        matrix[c.x - 1][c.y - 1] = 8;
-                    }
-                }
-                if (c.y + 1 < sizeY) {
-                    if (matrix[c.x - 1][c.y + 1] != 9) {
-                        matrix[c.x - 1][c.y + 1] = 8;
-                    }
-                }
-            }
-            if (c.x + 1 < sizeX) {
-                if (matrix[c.x + 1][c.y] != 9) {
-                    matrix[c.x + 1][c.y] = 8;
-                }
-                if (c.y - 1 >= 0) {
-                    if (matrix[c.x + 1][c.y - 1] != 9) {
-                        matrix[c.x + 1][c.y - 1] = 8;
-                    }
-                }
-                if (c.y + 1 < sizeY) {
-                    if (matrix[c.x + 1][c.y + 1] != 9) {
-                        matrix[c.x + 1][c.y + 1] = 8;
-                    }
-                }
-            }
-            if (c.y - 1 >= 0) {
-                if (matrix[c.x][c.y - 1] != 9) {
-                    matrix[c.x][c.y - 1] = 8;
-                }
-            }
-            if (c.y + 1 < sizeY) {
-                if (matrix[c.x][c.y + 1] != 9) {
-                    matrix[c.x][c.y + 1] = 8;
-                }
-            }
+        addShip(minX, minY, minX == maxX, Math.max(maxX - minX, maxY - minY) + 1);
+    }
+
+    /**
+     * Change the battlefield in such a way that
+     * the cells of the vessel are ships and the cells nearby are its halo.
+     * Nothing is allocated, the ship is marked by its first cell and length.
+     *
+     * @param sh the placed vessel.
+     */
+    public void changeMatrixAfterAddingShip(Ship sh) {
+        addShip(sh.getX(), sh.getY(), sh.isHorizontal(), sh.getSize());
+    }
+
+    /**
+     * Marking the ship and its halo by the masks of the placement template.
+     */
+    private void addShip(int x, int y, boolean horizontal, int length) {
+        if (templates.length <= length) {
+            templates = Arrays.copyOf(templates, length + 1);
+        }
+        if (templates[length] == null) {
+            templates[length] = PlacementTemplate.of(sizeX, sizeY, length);
+        }
+        templates[length].addShip(x, y, horizontal, planes, SHIP, HALO);
+    }
+
+    /**
+     * Change the battlefield in such a way that
+     * the cells of the vessel are sunk.
+     *
+     * @param sh the sunken vessel.
+     */
+    public void changeMatrixAfterSunk(Ship sh) {
+        for (int i = 0; i < sh.getSize(); i++) {
+            long bit = bit(sh.getCellX(i), sh.getCellY(i));
+            set(SUNK, bit);
+            clear(HIT, bit);
         }
     }
 
     /**
-     * Change value of elements of matrix in such a way that
-     * so that at the location of the sunken vessel there are 3.
+     * Change the battlefield in such a way that
+     * the cells of the recovered vessel are not hit just like as at the beginning.
+     *
+     * @param sh the recovered vessel.
+     */
+    public void changeMatrixAfterRecover(Ship sh) {
+        for (int i = 0; i < sh.getSize(); i++) {
+            long bit = bit(sh.getCellX(i), sh.getCellY(i));
+            clear(HIT, bit);
+            clear(SUNK, bit);
+        }
+    }
+
+    /**
+     * Change the battlefield in such a way that
+     * the cells of the vessel are sunk.
      *
      * @param coordinates coordinates of the vessel
      */
     public void changeMatrixAfterSunk(Coordinate[] coordinates) {
         for (Coordinate c : coordinates) {
-            matrix[c.x][c.y] = 3;
+            long bit = bit(c.x, c.y);
+            set(SUNK, bit);
+            clear(HIT, bit);
         }
     }
 
     /**
-     * Change value of elements of matrix in such a way that
-     * so that at the location of the recover vessel there are
-     * 9 just like as at the beginning.
+     * Change the battlefield in such a way that
+     * the cells of the recovered vessel are not hit just like as at the beginning.
      *
      * @param coordinates coordinates of recovered vessel.
      */
     public void changeMatrixAfterRecover(Coordinate[] coordinates) {
         for (Coordinate c : coordinates) {
-            matrix[c.x][c.y] = 9;
+            long bit = bit(c.x, c.y);
+            clear(HIT, bit);
+            clear(SUNK, bit);
         }
     }
 
     /**
      * Overriding toString method to get view on battlefield.
-     * If the element of the matrix equal to 1 that means that you attacked this cell and hit the ship.
-     * And '*' will be added to result string
-     * If equal to 2, so you attacked this cell and miss and result string get '#'.
-     * If equal to 3, so you sunk the ship at this cell and result string get 'x'.
-     * In other ways result string get 'o'.
      *
      * @return string showing the battlefield matrix.
+     * @see #render(Appendable)
      */
     @Override
     public String toString() {
-        String result = "\\  ";
-        int item;
-        for (int i = 0; i < sizeY; i++) {
-            result += i + 1 + " ";
-        }
-        result += System.lineSeparator();
-        for (int i = 0; i < sizeX; i++) {
-            result += i + 1 + "  ";
-            for (int j = 0; j < sizeY; j++) {
-                item = matrix[i][j];
-                // hit
-                if (item == 1) {
-                    result += "*";
-                }
-                // miss
-                else if (item == 2) {
-                    result += "#";
-                }
-                // sunk
-                else if (item == 3) {
-                    result += "x";
-                }
-                // default
-                else {
-                    result += "o";
-                }
-                result += " ";
+        // Каждая клетка занимает два символа, плюс номера строк и столбцов
+        StringBuilder sb = new StringBuilder((sizeX + 1) * (2 * sizeY + 10));
+        try {
+            render(sb);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writing the view on battlefield.
+     * If you attacked the cell and hit the ship, '*' is written.
+     * If you attacked the cell and miss, '#' is written.
+     * If you sunk the ship at this cell, 'x' is written.
+     * In other ways 'o' is written.
+     * Nothing is allocated, so the same buffer or writer can be reused for every frame.
+     *
+     * @param out where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void render(Appendable out) throws IOException {
+        render(out, 0, 0, sizeX, sizeY);
+    }
+
+    /**
+     * Writing the view on the window of the battlefield, rows and columns keep their numbers on the field.
+     * The window is cut by the borders of the field, so only the cells of the window are read.
+     *
+     * @param out   where to write.
+     * @param fromX the first row of the window.
+     * @param fromY the first column of the window.
+     * @param rows  amount of rows of the window.
+     * @param cols  amount of columns of the window.
+     * @throws IOException throws if out can't be written.
+     */
+    public void render(Appendable out, int fromX, int fromY, int rows, int cols) throws IOException {
+        int toX = (int) Math.min((long) fromX + rows, sizeX);
+        int toY = (int) Math.min((long) fromY + cols, sizeY);
+        out.append("\\  ");
+        for (int i = fromY; i < toY; i++) {
+            appendNumber(out, i + 1);
+            out.append(' ');
+        }
+        out.append(System.lineSeparator());
+        for (int i = fromX; i < toX; i++) {
+            appendNumber(out, i + 1);
+            out.append("  ");
+            for (int j = fromY; j < toY; j++) {
+                out.append(getCellGlyph(i, j));
+                out.append(' ');
             }
-            result += System.lineSeparator();
+            out.append(System.lineSeparator());
         }
-        return result;
+    }
+
+    /**
+     * Getting the symbol of the cell as it is shown to the player.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return '*' - hit, '#' - miss, 'x' - sunk, 'o' - unknown.
+     */
+    public char getCellGlyph(int x, int y) {
+        long bit = bit(x, y);
+        // hit
+        if (get(HIT, bit)) {
+            return '*';
+        }
+        // miss
+        else if (get(MISS, bit)) {
+            return '#';
+        }
+        // sunk
+        else if (get(SUNK, bit)) {
+            return 'x';
+        }
+        // default
+        return 'o';
     }
 
     /**
@@ -170,15 +448,106 @@ public class BattleField {
      * This method was created for testing.
      *
      * @return the string describes destination of ships.
+     * @see #renderHack(Appendable)
      */
     public String toHackString() {
-        String str = "";
-        for (int i = 0; i < sizeX; i++) {
-            for (int j = 0; j < sizeY; j++) {
-                str += matrix[i][j] + " ";
+        StringBuilder sb = new StringBuilder(sizeX * (2 * sizeY + 2));
+        try {
+            renderHack(sb);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writing the view on enemy's fleet destination.
+     * Cells are shown with the old matrix values:
+     * 9 - ship, 8 - halo, 1 - hit, 2 - miss, 3 - sunk, 0 - empty.
+     *
+     * @param out where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void renderHack(Appendable out) throws IOException {
+        renderHack(out, 0, 0, sizeX, sizeY);
+    }
+
+    /**
+     * Writing the view on enemy's fleet destination in the window of the battlefield.
+     *
+     * @param out   where to write.
+     * @param fromX the first row of the window.
+     * @param fromY the first column of the window.
+     * @param rows  amount of rows of the window.
+     * @param cols  amount of columns of the window.
+     * @throws IOException throws if out can't be written.
+     * @see #renderHack(Appendable)
+     */
+    public void renderHack(Appendable out, int fromX, int fromY, int rows, int cols) throws IOException {
+        int toX = (int) Math.min((long) fromX + rows, sizeX);
+        int toY = (int) Math.min((long) fromY + cols, sizeY);
+        for (int i = fromX; i < toX; i++) {
+            for (int j = fromY; j < toY; j++) {
+                out.append((char) ('0' + getCellCode(i, j)));
+                out.append(' ');
             }
-            str += System.lineSeparator();
+            out.append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Writing a positive number digit by digit without creating a string.
+     *
+     * @param out    where to write.
+     * @param number the number.
+     * @throws IOException throws if out can't be written.
+     */
+    static void appendNumber(Appendable out, int number) throws IOException {
+        int divider = 1;
+        while (divider <= number / 10) {
+            divider *= 10;
+        }
+        for (; divider > 0; divider /= 10) {
+            out.append((char) ('0' + number / divider % 10));
+        }
+    }
+
+    /**
+     * Getting the state of the cell in the form of the old matrix value.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return 3 - sunk, 1 - hit, 2 - miss, 9 - ship, 8 - halo, 0 - empty.
+     */
+    public int getCellCode(int x, int y) {
+        long bit = bit(x, y);
+        if (get(SUNK, bit)) {
+            return 3;
+        } else if (get(HIT, bit)) {
+            return 1;
+        } else if (get(MISS, bit)) {
+            return 2;
+        } else if (get(SHIP, bit)) {
+            return 9;
+        } else if (get(HALO, bit)) {
+            return 8;
         }
-        return str;
+        return 0;
+    }
+
+    private long bit(int x, int y) {
+        return (long) x * sizeY + y;
+    }
+
+    private boolean get(int plane, long bit) {
+        return (planes.get(plane, bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    private void set(int plane, long bit) {
+        planes.or(plane, bit >>> 6, 1L << bit);
+    }
+
+    private void clear(int plane, long bit) {
+        planes.andNot(plane, bit >>> 6, 1L << bit);
     }
 }
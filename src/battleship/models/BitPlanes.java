@@ -0,0 +1,356 @@
+package battleship.models;
+
+import battleship.utils.LongIntMap;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Storage of bit planes of a field, a word of a plane is addressed by the plane number and the word number.
+ * Dense storage keeps all words of all planes in one array.
+ * Chunked storage splits the planes into chunks of CHUNK_WORDS words and allocates a chunk
+ * only when a bit is set in it, so a huge ocean with a few ships and shots takes memory
+ * only around them, and clearing or scanning it touches only the allocated chunks.
+ * Off-heap storage keeps the words as dense storage does, but in a slot of BoardPool.
+ */
+abstract class BitPlanes {
+    /**
+     * Amount of words of one plane in a chunk of chunked storage.
+     */
+    static final int CHUNK_WORDS = 16;
+
+    final int planes;
+    final long planeWords;
+
+    private BitPlanes(int planes, long planeWords) {
+        this.planes = planes;
+        this.planeWords = planeWords;
+    }
+
+    /**
+     * Creating the storage with all bits cleared.
+     *
+     * @param planes     amount of planes.
+     * @param planeWords amount of words of one plane.
+     * @param isChunked  true to allocate words only where bits are set.
+     * @return the storage.
+     */
+    static BitPlanes create(int planes, long planeWords, boolean isChunked) {
+        return isChunked ? new Chunked(planes, planeWords) : new Dense(planes, planeWords);
+    }
+
+    /**
+     * Creating the storage over the words of a pooled slot, the words must be cleared.
+     *
+     * @param planes     amount of planes.
+     * @param planeWords amount of words of one plane.
+     * @param words      planes * planeWords words, planes go one after another.
+     * @return the storage.
+     */
+    static BitPlanes wrap(int planes, long planeWords, LongBuffer words) {
+        return new OffHeap(planes, planeWords, words);
+    }
+
+    /**
+     * Getting the word of the plane, words that were never set are zero.
+     */
+    abstract long get(int plane, long word);
+
+    /**
+     * Setting the bits of the mask in the word of the plane.
+     */
+    abstract void or(int plane, long word, long mask);
+
+    /**
+     * Clearing the bits of the mask in the word of the plane.
+     */
+    abstract void andNot(int plane, long word, long mask);
+
+    /**
+     * Clearing all bits.
+     */
+    abstract void clear();
+
+    /**
+     * Getting the amount of ranges of words outside of which every word of every plane is zero.
+     */
+    abstract int getRanges();
+
+    /**
+     * Getting the first word of the range.
+     */
+    abstract long getRangeStart(int range);
+
+    /**
+     * Getting the amount of words of the range.
+     */
+    abstract int getRangeWords(int range);
+
+    /**
+     * Getting the amount of long values written by save.
+     */
+    abstract int getSavedWords();
+
+    /**
+     * Writing all planes.
+     */
+    abstract void save(LongBuffer out);
+
+    /**
+     * Reading all planes written by save for the storage of the same size.
+     *
+     * @throws Exception throws if the values don't describe such planes.
+     */
+    abstract void load(LongBuffer in) throws Exception;
+
+    private static final class Dense extends BitPlanes {
+        // Плоскости лежат подряд, слово word плоскости plane имеет номер plane * planeWords + word
+        private final long[] words;
+        private final int stride;
+
+        Dense(int planes, long planeWords) {
+            super(planes, planeWords);
+            stride = Math.toIntExact(planeWords);
+            words = new long[Math.multiplyExact(stride, planes)];
+        }
+
+        @Override
+        long get(int plane, long word) {
+            return words[plane * stride + (int) word];
+        }
+
+        @Override
+        void or(int plane, long word, long mask) {
+            words[plane * stride + (int) word] |= mask;
+        }
+
+        @Override
+        void andNot(int plane, long word, long mask) {
+            words[plane * stride + (int) word] &= ~mask;
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(words, 0L);
+        }
+
+        @Override
+        int getRanges() {
+            return 1;
+        }
+
+        @Override
+        long getRangeStart(int range) {
+            return 0;
+        }
+
+        @Override
+        int getRangeWords(int range) {
+            return stride;
+        }
+
+        @Override
+        int getSavedWords() {
+            return words.length;
+        }
+
+        @Override
+        void save(LongBuffer out) {
+            out.put(words);
+        }
+
+        @Override
+        void load(LongBuffer in) throws Exception {
+            if (in.remaining() < words.length) {
+                throw new Exception("Incorrect bit planes");
+            }
+            in.get(words);
+        }
+    }
+
+    private static final class OffHeap extends BitPlanes {
+        // Раскладка та же, что у Dense, поэтому снимки не отличаются
+        private final LongBuffer words;
+        private final int stride;
+
+        OffHeap(int planes, long planeWords, LongBuffer words) {
+            super(planes, planeWords);
+            stride = Math.toIntExact(planeWords);
+            this.words = words;
+        }
+
+        @Override
+        long get(int plane, long word) {
+            return words.get(plane * stride + (int) word);
+        }
+
+        @Override
+        void or(int plane, long word, long mask) {
+            int i = plane * stride + (int) word;
+            words.put(i, words.get(i) | mask);
+        }
+
+        @Override
+        void andNot(int plane, long word, long mask) {
+            int i = plane * stride + (int) word;
+            words.put(i, words.get(i) & ~mask);
+        }
+
+        @Override
+        void clear() {
+            for (int i = 0; i < words.capacity(); i++) {
+                words.put(i, 0L);
+            }
+        }
+
+        @Override
+        int getRanges() {
+            return 1;
+        }
+
+        @Override
+        long getRangeStart(int range) {
+            return 0;
+        }
+
+        @Override
+        int getRangeWords(int range) {
+            return stride;
+        }
+
+        @Override
+        int getSavedWords() {
+            return words.capacity();
+        }
+
+        @Override
+        void save(LongBuffer out) {
+            for (int i = 0; i < words.capacity(); i++) {
+                out.put(words.get(i));
+            }
+        }
+
+        @Override
+        void load(LongBuffer in) throws Exception {
+            if (in.remaining() < words.capacity()) {
+                throw new Exception("Incorrect bit planes");
+            }
+            for (int i = 0; i < words.capacity(); i++) {
+                words.put(i, in.get());
+            }
+        }
+    }
+
+    private static final class Chunked extends BitPlanes {
+        // Номер чанка - номер слова, деленный на CHUNK_WORDS
+        private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_WORDS);
+
+        // Чанк с номером слота s занимает planes * CHUNK_WORDS слов data начиная с s * planes * CHUNK_WORDS
+        private final LongIntMap slots = new LongIntMap(64);
+        private final int chunkSize;
+        private long[] data;
+        private long[] chunkNumbers = new long[16];
+        private int chunks;
+
+        Chunked(int planes, long planeWords) {
+            super(planes, planeWords);
+            chunkSize = planes * CHUNK_WORDS;
+            data = new long[16 * chunkSize];
+        }
+
+        @Override
+        long get(int plane, long word) {
+            int slot = slots.get(word >>> CHUNK_SHIFT, -1);
+            return slot < 0 ? 0L : data[slot * chunkSize + plane * CHUNK_WORDS + (int) (word & (CHUNK_WORDS - 1))];
+        }
+
+        @Override
+        void or(int plane, long word, long mask) {
+            if (mask == 0) {
+                return;
+            }
+            long chunk = word >>> CHUNK_SHIFT;
+            int slot = slots.get(chunk, -1);
+            if (slot < 0) {
+                slot = allocate(chunk);
+            }
+            data[slot * chunkSize + plane * CHUNK_WORDS + (int) (word & (CHUNK_WORDS - 1))] |= mask;
+        }
+
+        @Override
+        void andNot(int plane, long word, long mask) {
+            int slot = slots.get(word >>> CHUNK_SHIFT, -1);
+            if (slot >= 0) {
+                data[slot * chunkSize + plane * CHUNK_WORDS + (int) (word & (CHUNK_WORDS - 1))] &= ~mask;
+            }
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(data, 0, chunks * chunkSize, 0L);
+            slots.clear();
+            chunks = 0;
+        }
+
+        @Override
+        int getRanges() {
+            return chunks;
+        }
+
+        @Override
+        long getRangeStart(int range) {
+            return chunkNumbers[range] << CHUNK_SHIFT;
+        }
+
+        @Override
+        int getRangeWords(int range) {
+            return (int) Math.min(CHUNK_WORDS, planeWords - getRangeStart(range));
+        }
+
+        /**
+         * The amount of chunks and then every chunk: its number and its words.
+         */
+        @Override
+        int getSavedWords() {
+            return 1 + chunks * (1 + chunkSize);
+        }
+
+        @Override
+        void save(LongBuffer out) {
+            out.put(chunks);
+            for (int slot = 0; slot < chunks; slot++) {
+                out.put(chunkNumbers[slot]);
+                out.put(data, slot * chunkSize, chunkSize);
+            }
+        }
+
+        @Override
+        void load(LongBuffer in) throws Exception {
+            clear();
+            long count = in.remaining() > 0 ? in.get() : -1;
+            if (count < 0 || count > in.remaining() / (1 + chunkSize)) {
+                throw new Exception("Incorrect bit planes");
+            }
+            long maxChunk = (planeWords - 1) >>> CHUNK_SHIFT;
+            for (long i = 0; i < count; i++) {
+                long chunk = in.get();
+                if (chunk < 0 || chunk > maxChunk || slots.get(chunk, -1) >= 0) {
+                    throw new Exception("Incorrect bit planes");
+                }
+                // Слот выделяется до чтения, потому что массив data может быть заменен
+                int slot = allocate(chunk);
+                in.get(data, slot * chunkSize, chunkSize);
+            }
+        }
+
+        private int allocate(long chunk) {
+            if (chunks == chunkNumbers.length) {
+                chunkNumbers = Arrays.copyOf(chunkNumbers, chunks * 2);
+                data = Arrays.copyOf(data, chunks * 2 * chunkSize);
+            }
+            chunkNumbers[chunks] = chunk;
+            slots.put(chunk, chunks);
+            return chunks++;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package battleship.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Off-heap storage of battlefields of one size for hosting many games at once.
+ * Memory is taken from the operating system by direct buffers, arenas of slotsPerArena slots each,
+ * and a slot keeps all bit planes of one battlefield and the cell index of its fleet.
+ * The garbage collector sees only a few small buffer objects per slot instead of the arrays
+ * of every game, so its pauses don't grow with the amount of resident games.
+ * A slot is taken by the BattleField constructor and must be given back by BattleField.release,
+ * released slots are reused by next games, arenas are never returned to the system.
+ * The pool may be shared between threads.
+ */
+public final class BoardPool {
+    /**
+     * Default amount of slots allocated at once.
+     */
+    public static final int DEFAULT_SLOTS_PER_ARENA = 1 << 10;
+    // Арена не больше 1 ГБ, чтобы ее размер помещался в int
+    private static final int MAX_ARENA_BYTES = 1 << 30;
+
+    public final int sizeX;
+    public final int sizeY;
+    final int planes;
+    final int planeWords;
+    private final int slotBytes;
+    private final int slotsPerArena;
+    private final ArrayList<ByteBuffer> arenas = new ArrayList<>();
+    // Представления слотов создаются один раз и переиспользуются следующими играми
+    private LongBuffer[] planeViews = new LongBuffer[0];
+    private IntBuffer[] indexViews = new IntBuffer[0];
+    private int[] free = new int[0];
+    private boolean[] isUsed = new boolean[0];
+    private int freeCount;
+    private int slots;
+
+    /**
+     * BoardPool constructor, no memory is allocated until the first slot is acquired.
+     *
+     * @param sizeX         amount of rows of every battlefield.
+     * @param sizeY         amount of columns of every battlefield.
+     * @param slotsPerArena amount of slots allocated at once.
+     */
+    public BoardPool(int sizeX, int sizeY, int slotsPerArena) {
+        if (sizeX <= 0 || sizeY <= 0 || (long) sizeX * sizeY > BattleField.MAX_DENSE_CELLS) {
+            throw new IllegalArgumentException("Pooled field size must be positive and not bigger than "
+                    + BattleField.MAX_DENSE_CELLS + " cells");
+        }
+        if (slotsPerArena <= 0) {
+            throw new IllegalArgumentException("Amount of slots per arena must be positive");
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        int cells = sizeX * sizeY;
+        planes = BattleField.PLANES;
+        planeWords = (cells + 63) >>> 6;
+        // Плоскости, затем номера кораблей клеток, слот выровнен по 8 байтам
+        slotBytes = (planes * planeWords * Long.BYTES + cells * Integer.BYTES + 7) & ~7;
+        this.slotsPerArena = Math.max(1, Math.min(slotsPerArena, MAX_ARENA_BYTES / slotBytes));
+    }
+
+    /**
+     * BoardPool constructor with the default arena size.
+     *
+     * @param sizeX amount of rows of every battlefield.
+     * @param sizeY amount of columns of every battlefield.
+     */
+    public BoardPool(int sizeX, int sizeY) {
+        this(sizeX, sizeY, DEFAULT_SLOTS_PER_ARENA);
+    }
+
+    /**
+     * Getting the amount of allocated slots, free and used.
+     *
+     * @return the amount of slots.
+     */
+    public synchronized int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Getting the amount of slots taken by battlefields.
+     *
+     * @return the amount of used slots.
+     */
+    public synchronized int getUsedSlots() {
+        return slots - freeCount;
+    }
+
+    /**
+     * Getting the amount of off-heap bytes taken from the system.
+     *
+     * @return the amount of bytes.
+     */
+    public synchronized long getAllocatedBytes() {
+        return (long) arenas.size() * slotsPerArena * slotBytes;
+    }
+
+    /**
+     * Taking a free slot with all bits and ship numbers cleared, a new arena is allocated if needed.
+     *
+     * @return the number of the slot.
+     */
+    synchronized int acquire() {
+        if (freeCount == 0) {
+            allocateArena();
+        }
+        int slot = free[--freeCount];
+        isUsed[slot] = true;
+        LongBuffer words = planeViews[slot];
+        for (int i = 0; i < words.capacity(); i++) {
+            words.put(i, 0L);
+        }
+        IntBuffer index = indexViews[slot];
+        for (int i = 0; i < index.capacity(); i++) {
+            index.put(i, 0);
+        }
+        return slot;
+    }
+
+    /**
+     * Giving the slot back, it must not be used after that.
+     *
+     * @param slot the number of the slot.
+     */
+    synchronized void release(int slot) {
+        if (slot < 0 || slot >= slots || !isUsed[slot]) {
+            throw new IllegalArgumentException("Slot " + slot + " is not used");
+        }
+        isUsed[slot] = false;
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Getting the words of all planes of the slot, planes go one after another.
+     * The arrays of views are replaced when an arena is added, so they are read under the lock.
+     */
+    synchronized LongBuffer getPlanes(int slot) {
+        return planeViews[slot];
+    }
+
+    /**
+     * Getting the ship numbers of all cells of the slot.
+     */
+    synchronized IntBuffer getShipIndex(int slot) {
+        return indexViews[slot];
+    }
+
+    private void allocateArena() {
+        ByteBuffer arena = ByteBuffer.allocateDirect(slotsPerArena * slotBytes).order(ByteOrder.nativeOrder());
+        arenas.add(arena);
+        int first = slots;
+        slots += slotsPerArena;
+        planeViews = Arrays.copyOf(planeViews, slots);
+        indexViews = Arrays.copyOf(indexViews, slots);
+        free = Arrays.copyOf(free, slots);
+        isUsed = Arrays.copyOf(isUsed, slots);
+        int planesBytes = planes * planeWords * Long.BYTES;
+        for (int i = 0; i < slotsPerArena; i++) {
+            int at = i * slotBytes;
+            planeViews[first + i] = arena.slice(at, planesBytes).order(ByteOrder.nativeOrder()).asLongBuffer();
+            indexViews[first + i] = arena.slice(at + planesBytes, sizeX * sizeY * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        // Слоты выдаются по возрастанию номеров
+        for (int i = slots - 1; i >= first; i--) {
+            free[freeCount++] = i;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package battleship.models;
+
+import battleship.metrics.GameMetrics;
+
+import java.io.IOException;
+
+/**
+ * Renders the battlefield for a terminal.
+ * In plain mode the whole field is written every time.
+ * In ANSI diff mode the first frame clears the screen, draws the whole field and
+ * lets only the lines below the field scroll, so the field stays in place.
+ * Next frames move the cursor only to the cells that changed since the previous frame
+ * and then return it back to the text below the field.
+ * <p>
+ * Fields with more than MAX_VIEW_SIZE rows or columns are shown through a window around the focused cell,
+ * so a frame of a huge ocean reads only the cells of the window.
+ */
+public class FieldRenderer {
+    /**
+     * The biggest amount of rows and columns shown in one frame.
+     */
+    public static final int MAX_VIEW_SIZE = 64;
+    private static final String ESC = "\u001b[";
+
+    private final boolean isAnsiDiffModeEnabled;
+    // Клетка, вокруг которой строится окно
+    private int focusX;
+    private int focusY;
+    // Символы клеток окна последнего выведенного кадра
+    private char[] lastFrame;
+    private int lastSizeX;
+    private int lastSizeY;
+    private int lastFromX;
+    private int lastFromY;
+
+    /**
+     * FieldRenderer constructor.
+     *
+     * @param isAnsiDiffModeEnabled true to redraw only changed cells with ANSI escape sequences.
+     */
+    public FieldRenderer(boolean isAnsiDiffModeEnabled) {
+        this.isAnsiDiffModeEnabled = isAnsiDiffModeEnabled;
+    }
+
+    /**
+     * Check if ANSI diff mode is enabled.
+     *
+     * @return true if only changed cells are redrawn.
+     */
+    public boolean isAnsiDiffModeEnabled() {
+        return isAnsiDiffModeEnabled;
+    }
+
+    /**
+     * Forgetting the previous frame, so the next frame is drawn in full.
+     * It is needed when something else was written over the field.
+     */
+    public void invalidate() {
+        lastFrame = null;
+    }
+
+    /**
+     * Moving the window of big fields, so the cell is in its middle or as close to it as the borders allow.
+     *
+     * @param x the x coordinate of the cell.
+     * @param y the y coordinate of the cell.
+     */
+    public void focus(int x, int y) {
+        focusX = x;
+        focusY = y;
+    }
+
+    /**
+     * Writing the view on enemy's fleet destination in the window of the frame.
+     *
+     * @param battleField the battlefield to show.
+     * @param out         where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void renderHack(BattleField battleField, Appendable out) throws IOException {
+        battleField.renderHack(out, viewStart(focusX, battleField.sizeX), viewStart(focusY, battleField.sizeY),
+                MAX_VIEW_SIZE, MAX_VIEW_SIZE);
+    }
+
+    /**
+     * Writing the next frame of the battlefield.
+     *
+     * @param battleField the battlefield to show.
+     * @param out         where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void render(BattleField battleField, Appendable out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            renderFrame(battleField, out);
+        } finally {
+            GameMetrics.renderTime.recordSince(start);
+        }
+    }
+
+    private void renderFrame(BattleField battleField, Appendable out) throws IOException {
+        int sizeX = battleField.sizeX;
+        int sizeY = battleField.sizeY;
+        int rows = Math.min(sizeX, MAX_VIEW_SIZE);
+        int cols = Math.min(sizeY, MAX_VIEW_SIZE);
+        int fromX = viewStart(focusX, sizeX);
+        int fromY = viewStart(focusY, sizeY);
+        if (!isAnsiDiffModeEnabled) {
+            battleField.render(out, fromX, fromY, rows, cols);
+            return;
+        }
+        if (lastFrame == null || lastSizeX != sizeX || lastSizeY != sizeY
+                || lastFromX != fromX || lastFromY != fromY) {
+            out.append(ESC).append("r").append(ESC).append("H").append(ESC).append("2J");
+            battleField.render(out, fromX, fromY, rows, cols);
+            lastFrame = new char[rows * cols];
+            lastSizeX = sizeX;
+            lastSizeY = sizeY;
+            lastFromX = fromX;
+            lastFromY = fromY;
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    lastFrame[i * cols + j] = battleField.getCellGlyph(fromX + i, fromY + j);
+                }
+            }
+            // Прокручиваются только строки под полем
+            out.append(ESC);
+            BattleField.appendNumber(out, rows + 2);
+            out.append('r');
+            moveCursor(out, rows + 2, 1);
+            return;
+        }
+        out.append("\u001b7");
+        for (int i = 0; i < rows; i++) {
+            // Строка окна i выводится на строке экрана i + 2, перед клетками идут номер строки и два пробела
+            int prefix = digits(fromX + i + 1) + 2;
+            for (int j = 0; j < cols; j++) {
+                char glyph = battleField.getCellGlyph(fromX + i, fromY + j);
+                if (lastFrame[i * cols + j] != glyph) {
+                    lastFrame[i * cols + j] = glyph;
+                    moveCursor(out, i + 2, prefix + 2 * j + 1);
+                    out.append(glyph);
+                }
+            }
+        }
+        out.append("\u001b8");
+    }
+
+    /**
+     * Getting the first row (or column) of the window around the focused one.
+     */
+    private static int viewStart(int focus, int size) {
+        int view = Math.min(size, MAX_VIEW_SIZE);
+        return Math.max(0, Math.min(focus - view / 2, size - view));
+    }
+
+    /**
+     * Returning the terminal to the usual scrolling of the whole screen.
+     *
+     * @param out where to write.
+     * @throws IOException throws if out can't be written.
+     */
+    public void reset(Appendable out) throws IOException {
+        if (isAnsiDiffModeEnabled && lastFrame != null) {
+            out.append(ESC).append("r");
+            lastFrame = null;
+        }
+    }
+
+    private static void moveCursor(Appendable out, int line, int column) throws IOException {
+        out.append(ESC);
+        BattleField.appendNumber(out, line);
+        out.append(';');
+        BattleField.appendNumber(out, column);
+        out.append('H');
+    }
+
+    private static int digits(int number) {
+        int count = 1;
+        while (number >= 10) {
+            number /= 10;
+            count++;
+        }
+        return count;
+    }
+}
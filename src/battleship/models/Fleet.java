@@ -1,45 +1,95 @@
 package battleship.models;
 
+import battleship.enums.Feasibility;
+import battleship.enums.PlacementResult;
 import battleship.enums.ShipType;
+import battleship.metrics.GameMetrics;
+import battleship.utils.LongIntMap;
 
-import java.util.Objects;
+import java.nio.IntBuffer;
+import java.util.SplittableRandom;
 
 public class Fleet {
+    private final FleetConfig config;
+    private final SplittableRandom rnd;
     private final Ship[] ships;
     private BattleField battleField;
     private int torpedoesAmount;
+    // Номер корабля плюс один для каждой клетки поля, 0 - клетка без корабля
+    private int[] shipIndex;
+    // Для поля с чанками номера хранятся только для клеток кораблей
+    private LongIntMap sparseShipIndex;
+    // Для поля из пула номера лежат в его слоте вне кучи
+    private IntBuffer pooledShipIndex;
+    private int remainingShips;
 
     /**
      * Fleet constructor.
      *
-     * @param args game parameters.
-     * @throws Exception throw due to incorrect game parameters.
-     */
-    public Fleet(String[] args) throws Exception {
-        setShipParams(args);
-        ships = new Ship[ShipType.getWholeAmount()];
-        torpedoesAmount = Integer.parseInt(args[args.length - 2]);
-        if (torpedoesAmount > ships.length) {
-            throw new Exception("torpedoes amount mustn't be bigger than ship amount");
-        }
+     * @param config amounts of ships and torpedoes.
+     * @param rnd    random generator of this fleet used for placement.
+     */
+    public Fleet(FleetConfig config, SplittableRandom rnd) {
+        this.config = config;
+        this.rnd = rnd;
+        ships = new Ship[config.getWholeAmount()];
+        torpedoesAmount = config.getTorpedoesAmount();
     }
 
     /**
      * Getting the ship that just been hit.
+     * The ship is found by the cell index built during the placement.
      *
      * @param x the x coordinate of the ship.
      * @param y the y coordinate of the ship.
-     * @return the hit ship.
+     * @return the hit ship or a new default ship if there is no ship in the cell or the fleet isn't placed.
      */
     public Ship getHitShip(int x, int y) {
-        for (Ship sh : getShips()) {
-            for (Coordinate c : sh.getCoordinates()) {
-                if (c.x == x && c.y == y) {
-                    return sh;
-                }
-            }
+        int id;
+        if (!isPlaced()) {
+            id = 0;
+        } else if (shipIndex != null) {
+            id = shipIndex[x * battleField.sizeY + y];
+        } else if (pooledShipIndex != null) {
+            id = pooledShipIndex.get(x * battleField.sizeY + y);
+        } else {
+            id = sparseShipIndex.get((long) x * battleField.sizeY + y, 0);
+        }
+        return id == 0 ? new Ship() : ships[id - 1];
+    }
+
+    /**
+     * Hitting the ship.
+     * If the ship is sunk after that, the amount of remaining ships decreases.
+     *
+     * @param sh the hit ship.
+     */
+    public void hit(Ship sh) {
+        sh.hit();
+        if (sh.isSunk()) {
+            remainingShips--;
+        }
+    }
+
+    /**
+     * Sinking the ship at once, for example by torpedo.
+     *
+     * @param sh the ship to sink.
+     */
+    public void sink(Ship sh) {
+        if (!sh.isSunk()) {
+            sh.sunk();
+            remainingShips--;
         }
-        return new Ship();
+    }
+
+    /**
+     * Getting an amount of ships that are not sunk yet.
+     *
+     * @return the amount of remaining ships.
+     */
+    public int getRemainingShips() {
+        return remainingShips;
     }
 
     /**
@@ -71,35 +121,23 @@ public class Fleet {
      * Parsing a game's parameters into the Fleet object.
      *
      * @param args game parameters.
-     * @return the Fleet object.
+     * @return the Fleet object with not seeded random generator.
      * @throws Exception throws in two ways
      *                   First it is about incorrect game parameters that make impossible
-     *                   to parse Shing array elements into integer.
+     *                   to parse String array elements into integer.
      *                   Second it is about exceeding the maximum allowable torpedoes amount.
      */
     public static Fleet tryParseCommandLineParams(String[] args) throws Exception {
-        try {
-            return new Fleet(args);
-        } catch (Exception ex) {
-            if (Objects.equals(ex.getMessage(), "torpedoes amount mustn't be bigger than ship amount")) {
-                throw ex;
-            }
-            throw new Exception("Incorrect command line parameters");
-        }
+        return new Fleet(FleetConfig.tryParseCommandLineParams(args), new SplittableRandom());
     }
 
     /**
-     * Setting an amount of every ship type.
+     * Getting the configuration of the fleet.
      *
-     * @param args game parameters.
-     * @throws NumberFormatException throws if it's unable to parse String array elements into integer.
+     * @return amounts of ships and torpedoes.
      */
-    private void setShipParams(String[] args) throws NumberFormatException {
-        int i = 0;
-        for (ShipType sh : ShipType.values()) {
-            sh.setAmount(Integer.parseInt(args[i + 2]));
-            i++;
-        }
+    public FleetConfig getConfig() {
+        return config;
     }
 
     /**
@@ -114,49 +152,117 @@ public class Fleet {
     /**
      * Creating of a ship array of the fleet.
      * Then summoning method that set coordinates for every ship of the fleet.
-     * If it is impossible this method notify us about it and offer us to input game parameters again.
+     * Fleets that surely don't fit the field are rejected at once without the search.
      *
-     * @return true if it is possible to set Fleet, false otherwise.
+     * @return the result of the placement.
      */
-    public boolean trySetFleet() {
+    public PlacementResult trySetFleet() {
+        if (FleetFeasibility.check(battleField.sizeX, battleField.sizeY, config).getVerdict()
+                == Feasibility.infeasible) {
+            GameMetrics.placementRejections.increment();
+            GameMetrics.countPlacement(PlacementResult.infeasible);
+            return PlacementResult.infeasible;
+        }
         int j = 0;
         for (ShipType sh : ShipType.values()) {
-            for (int i = 0; i < sh.getAmount(); i++) {
+            for (int i = 0; i < config.getAmount(sh); i++) {
                 ships[j++] = new Ship(sh);
             }
         }
-        if (!trySetFleetCoordinates()) {
-            System.out.println("Unable to set coordinates");
-            System.out.println("Input another parameters");
-            return false;
+        PlacementResult result = trySetFleetCoordinates();
+        if (result == PlacementResult.placed) {
+            buildShipIndex();
         }
-        return true;
+        return result;
     }
 
     /**
-     * Setting the coordinates of all ships in the fleet.
-     * If the number of attempts to set the coordinates is exceeded
-     * the deployment of the fleet is declared impossible.
+     * Check if the fleet was placed in the ocean.
      *
-     * @return true if ships were placed in the ocean
-     * false if they weren't.
+     * @return true if every ship has its coordinates.
      */
-    public boolean trySetFleetCoordinates() {
-        // Максимальное число попыток
-        int maxIteration = 100;
-        for (int i = 0; i < ships.length; i++) {
-            if (!ships[i].trySetShipCoordinates(battleField)) {
-                maxIteration--;
-                i = -1;
-                battleField.clearMatrix();
-            } else {
-                battleField.changeMatrixAfterAddingShips(ships[i].getCoordinates());
+    public boolean isPlaced() {
+        return shipIndex != null || sparseShipIndex != null || pooledShipIndex != null;
+    }
+
+    /**
+     * Restoring the placed fleet, for example from a saved game.
+     * The ships must be already marked on the battlefield.
+     *
+     * @param restored        ships with their coordinates and head points.
+     * @param torpedoesAmount the amount of remaining torpedoes.
+     * @throws Exception throws if the ships don't match the configuration of the fleet.
+     */
+    public void restore(Ship[] restored, int torpedoesAmount) throws Exception {
+        int[] amounts = new int[ShipType.values().length];
+        for (Ship sh : restored) {
+            amounts[sh.getType().ordinal()]++;
+        }
+        for (ShipType type : ShipType.values()) {
+            if (amounts[type.ordinal()] != config.getAmount(type)) {
+                throw new Exception("Saved fleet doesn't match the game parameters");
+            }
+        }
+        if (torpedoesAmount < 0 || torpedoesAmount > config.getTorpedoesAmount()) {
+            throw new Exception("Saved fleet doesn't match the game parameters");
+        }
+        System.arraycopy(restored, 0, ships, 0, ships.length);
+        this.torpedoesAmount = torpedoesAmount;
+        buildShipIndex();
+        for (Ship sh : ships) {
+            if (sh.isSunk()) {
+                remainingShips--;
+            }
+        }
+    }
+
+    /**
+     * Filling the cell index of ships and the counter of remaining ships.
+     * Chunked battlefields get the hash index of ship cells instead of the array of all cells,
+     * pooled battlefields keep the index in their slot.
+     */
+    private void buildShipIndex() {
+        int cells = 0;
+        for (Ship sh : ships) {
+            cells += sh.getSize();
+        }
+        if (battleField.isChunked()) {
+            sparseShipIndex = new LongIntMap(cells);
+        } else if (battleField.getPooledShipIndex() != null) {
+            pooledShipIndex = battleField.getPooledShipIndex();
+            for (int i = 0; i < pooledShipIndex.capacity(); i++) {
+                pooledShipIndex.put(i, 0);
             }
-            if (maxIteration == 0) {
-                return false;
+        } else {
+            shipIndex = new int[battleField.sizeX * battleField.sizeY];
+        }
+        for (int i = 0; i < ships.length; i++) {
+            Ship sh = ships[i];
+            for (int k = 0; k < sh.getSize(); k++) {
+                long cell = (long) sh.getCellX(k) * battleField.sizeY + sh.getCellY(k);
+                if (shipIndex != null) {
+                    shipIndex[(int) cell] = i + 1;
+                } else if (pooledShipIndex != null) {
+                    pooledShipIndex.put((int) cell, i + 1);
+                } else {
+                    sparseShipIndex.put(cell, i + 1);
+                }
             }
         }
-        return true;
+        remainingShips = ships.length;
+    }
+
+    /**
+     * Setting the coordinates of all ships in the fleet.
+     * Ships are placed from the largest to the smallest with backtracking,
+     * so the placement is declared impossible only when every variant was checked
+     * or when the steps limit of the placer was exceeded.
+     *
+     * @return the result of the placement.
+     */
+    public PlacementResult trySetFleetCoordinates() {
+        // Корабли в массиве уже упорядочены по убыванию размера, как и ShipType
+        return new FleetPlacer(battleField, rnd, FleetPlacer.DEFAULT_MAX_STEPS).place(ships);
     }
 
     /**
@@ -166,11 +272,6 @@ public class Fleet {
      * false in other way.
      */
     public boolean areAllShipsSunk() {
-        for (Ship sh : ships) {
-            if (!sh.isSunk()) {
-                return false;
-            }
-        }
-        return true;
+        return remainingShips == 0;
     }
 }
@@ -0,0 +1,142 @@
+package battleship.models;
+
+import battleship.enums.PlacementResult;
+import battleship.enums.ShipType;
+
+/**
+ * Placements of many fleets of one configuration kept in flat arrays.
+ * The buffer is filled by FleetGenerator and can be reused, its arrays grow only
+ * when more fleets or ships than before are asked.
+ */
+public class FleetBuffer {
+    private ShipType[] types = new ShipType[0];
+    private int shipsPerFleet;
+    private int fleets;
+    private long[] seeds = new long[0];
+    private PlacementResult[] results = new PlacementResult[0];
+    // Корабль ship флота fleet лежит под номером fleet * shipsPerFleet + ship
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private boolean[] horizontal = new boolean[0];
+
+    /**
+     * Getting an amount of fleets in the buffer.
+     *
+     * @return the amount of fleets.
+     */
+    public int getFleets() {
+        return fleets;
+    }
+
+    /**
+     * Getting an amount of ships of every fleet.
+     *
+     * @return the amount of ships.
+     */
+    public int getShipsPerFleet() {
+        return shipsPerFleet;
+    }
+
+    /**
+     * Getting the seed of the fleet.
+     *
+     * @param fleet number of the fleet.
+     * @return the seed.
+     */
+    public long getSeed(int fleet) {
+        return seeds[fleet];
+    }
+
+    /**
+     * Getting the result of the placement of the fleet.
+     * Ships of a fleet which wasn't placed have no coordinates.
+     *
+     * @param fleet number of the fleet.
+     * @return the result of the placement.
+     */
+    public PlacementResult getResult(int fleet) {
+        return results[fleet];
+    }
+
+    /**
+     * Getting the type of the ship, ships go in the same order in every fleet.
+     *
+     * @param ship number of the ship in the fleet.
+     * @return the type of the ship.
+     */
+    public ShipType getType(int ship) {
+        return types[ship];
+    }
+
+    /**
+     * Getting the x coordinate of the upper left cell of the ship.
+     *
+     * @param fleet number of the fleet.
+     * @param ship  number of the ship in the fleet.
+     * @return the x coordinate.
+     */
+    public int getX(int fleet, int ship) {
+        return xs[fleet * shipsPerFleet + ship];
+    }
+
+    /**
+     * Getting the y coordinate of the upper left cell of the ship.
+     *
+     * @param fleet number of the fleet.
+     * @param ship  number of the ship in the fleet.
+     * @return the y coordinate.
+     */
+    public int getY(int fleet, int ship) {
+        return ys[fleet * shipsPerFleet + ship];
+    }
+
+    /**
+     * Check if the ship goes along the row.
+     *
+     * @param fleet number of the fleet.
+     * @param ship  number of the ship in the fleet.
+     * @return true if the ship is horizontal.
+     */
+    public boolean isHorizontal(int fleet, int ship) {
+        return horizontal[fleet * shipsPerFleet + ship];
+    }
+
+    /**
+     * Preparing the buffer for the fleets of the ships, previous fleets are forgotten.
+     */
+    void reset(Ship[] ships, int fleets) {
+        if (types.length != ships.length) {
+            types = new ShipType[ships.length];
+        }
+        for (int i = 0; i < ships.length; i++) {
+            types[i] = ships[i].getType();
+        }
+        shipsPerFleet = ships.length;
+        this.fleets = fleets;
+        if (seeds.length < fleets) {
+            seeds = new long[fleets];
+            results = new PlacementResult[fleets];
+        }
+        int cells = Math.multiplyExact(fleets, ships.length);
+        if (xs.length < cells) {
+            xs = new int[cells];
+            ys = new int[cells];
+            horizontal = new boolean[cells];
+        }
+    }
+
+    /**
+     * Writing the fleet, the ships must be in the order given to reset.
+     */
+    void put(int fleet, long seed, PlacementResult result, Ship[] ships) {
+        seeds[fleet] = seed;
+        results[fleet] = result;
+        for (int i = 0; i < ships.length; i++) {
+            int at = fleet * shipsPerFleet + i;
+            boolean isPlaced = result == PlacementResult.placed;
+            xs[at] = isPlaced ? ships[i].getX() : -1;
+            ys[at] = isPlaced ? ships[i].getY() : -1;
+            horizontal[at] = isPlaced && ships[i].isHorizontal();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package battleship.models;
+
+import battleship.enums.ShipType;
+
+import java.util.Arrays;
+
+/**
+ * Immutable amounts of ships of every type and of torpedoes.
+ * One configuration can be shared by any amount of games.
+ */
+public final class FleetConfig {
+    private final int[] amounts;
+    private final int torpedoesAmount;
+
+    /**
+     * FleetConfig constructor.
+     *
+     * @param amounts         amounts of ships in the order of ShipType values.
+     * @param torpedoesAmount amount of torpedoes.
+     * @throws Exception throws if amounts are negative
+     *                   or torpedoes amount is bigger than ship amount.
+     */
+    public FleetConfig(int[] amounts, int torpedoesAmount) throws Exception {
+        if (amounts.length != ShipType.values().length) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        this.amounts = amounts.clone();
+        this.torpedoesAmount = torpedoesAmount;
+        for (int amount : amounts) {
+            if (amount < 0) {
+                throw new Exception("Incorrect command line parameters");
+            }
+        }
+        if (torpedoesAmount < 0) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        if (torpedoesAmount > getWholeAmount()) {
+            throw new Exception("torpedoes amount mustn't be bigger than ship amount");
+        }
+    }
+
+    /**
+     * Parsing a game's parameters into the FleetConfig object.
+     *
+     * @param args game parameters.
+     * @return the FleetConfig object.
+     * @throws Exception throws in two ways
+     *                   First it is about incorrect game parameters that make impossible
+     *                   to parse String array elements into integer.
+     *                   Second it is about exceeding the maximum allowable torpedoes amount.
+     */
+    public static FleetConfig tryParseCommandLineParams(String[] args) throws Exception {
+        int[] amounts = new int[ShipType.values().length];
+        int torpedoesAmount;
+        try {
+            for (int i = 0; i < amounts.length; i++) {
+                amounts[i] = Integer.parseInt(args[i + 2]);
+            }
+            torpedoesAmount = Integer.parseInt(args[args.length - 2]);
+        } catch (Exception ex) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        return new FleetConfig(amounts, torpedoesAmount);
+    }
+
+    /**
+     * Getting an amount of ships of definite ship type.
+     *
+     * @param type the ship type.
+     * @return the amount.
+     */
+    public int getAmount(ShipType type) {
+        return amounts[type.ordinal()];
+    }
+
+    /**
+     * Getting an amount of ships.
+     *
+     * @return the sum of amounts of ship types
+     */
+    public int getWholeAmount() {
+        int sum = 0;
+        for (int amount : amounts) {
+            sum += amount;
+        }
+        return sum;
+    }
+
+    /**
+     * Getting an amount of torpedoes.
+     *
+     * @return the amount of torpedoes.
+     */
+    public int getTorpedoesAmount() {
+        return torpedoesAmount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FleetConfig)) {
+            return false;
+        }
+        FleetConfig other = (FleetConfig) o;
+        return torpedoesAmount == other.torpedoesAmount && Arrays.equals(amounts, other.amounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(amounts) + torpedoesAmount;
+    }
+}
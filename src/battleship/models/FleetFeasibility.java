@@ -0,0 +1,191 @@
+package battleship.models;
+
+import battleship.enums.Feasibility;
+import battleship.enums.ShipType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quick check if the fleet can be placed on the empty field, made before any search.
+ * <p>
+ * If the ship and the halo cells to the right and below it are taken, a ship of length L takes
+ * a 2 x (L + 1) rectangle of the field extended by one row and one column, and these rectangles
+ * of different ships never overlap. So the fleet surely can't be placed when their sum is bigger than
+ * (sizeX + 1) * (sizeY + 1). Also all cells of a 2 x 2 square touch each other, so such a square
+ * can't have cells of two ships, and a ship of length L crosses at least (L + 1) / 2 squares
+ * of the field split into squares. On the other side, the fleet surely can be placed when the ships fit
+ * into every other row (or column) one after another, from the longest type to the shortest.
+ * Only the configurations between these two checks need the search.
+ */
+public final class FleetFeasibility {
+    /**
+     * Share of the extended field taken by the ships above which the configuration is near the capacity.
+     */
+    public static final double NEAR_CAPACITY_LOAD = 0.8;
+    // Кэш может расти без конца при переборе конфигураций, поэтому он очищается целиком
+    private static final int MAX_CACHED = 1 << 16;
+    private static final Map<Key, FleetFeasibility> cache = new ConcurrentHashMap<>();
+
+    private final Feasibility verdict;
+    private final double load;
+    private final String reason;
+
+    private FleetFeasibility(Feasibility verdict, double load, String reason) {
+        this.verdict = verdict;
+        this.load = load;
+        this.reason = reason;
+    }
+
+    /**
+     * Checking the fleet of the game configuration.
+     *
+     * @param config the game configuration.
+     * @return the result of the check.
+     */
+    public static FleetFeasibility check(GameConfig config) {
+        return check(config.sizeX, config.sizeY, config.fleetConfig);
+    }
+
+    /**
+     * Checking the fleet on the empty field.
+     * Results are cached by the field size and amounts of ships.
+     *
+     * @param sizeX       amount of rows.
+     * @param sizeY       amount of columns.
+     * @param fleetConfig amounts of ships.
+     * @return the result of the check.
+     */
+    public static FleetFeasibility check(int sizeX, int sizeY, FleetConfig fleetConfig) {
+        Key key = new Key(sizeX, sizeY, fleetConfig);
+        FleetFeasibility result = cache.get(key);
+        if (result == null) {
+            result = analyze(sizeX, sizeY, fleetConfig);
+            if (cache.size() >= MAX_CACHED) {
+                cache.clear();
+            }
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private static FleetFeasibility analyze(int sizeX, int sizeY, FleetConfig fleetConfig) {
+        long area = 0;
+        long blocks = 0;
+        for (ShipType type : ShipType.values()) {
+            int amount = fleetConfig.getAmount(type);
+            if (amount > 0 && type.getSize() > Math.max(sizeX, sizeY)) {
+                return new FleetFeasibility(Feasibility.infeasible, Double.POSITIVE_INFINITY,
+                        type + " is longer than the field");
+            }
+            area += 2L * (type.getSize() + 1) * amount;
+            blocks += (long) (type.getSize() + 1) / 2 * amount;
+        }
+        double load = (double) area / ((sizeX + 1L) * (sizeY + 1L));
+        if (load > 1) {
+            return new FleetFeasibility(Feasibility.infeasible, load,
+                    "ships with their halo need more cells than the field has");
+        }
+        if (blocks > (sizeX + 1L) / 2 * ((sizeY + 1L) / 2)) {
+            return new FleetFeasibility(Feasibility.infeasible, load,
+                    "ships need more 2x2 squares of the field than it has");
+        }
+        if (fitsShelves(sizeX, sizeY, fleetConfig) || fitsShelves(sizeY, sizeX, fleetConfig)) {
+            return new FleetFeasibility(Feasibility.feasible, load, "ships fit into every other row");
+        }
+        return new FleetFeasibility(Feasibility.unknown, load, "only the search can place the fleet");
+    }
+
+    /**
+     * Putting ships into every other row one after another, the longest types first.
+     * Every ship with the gap after it takes L + 1 cells of a row of length rowLength + 1.
+     */
+    private static boolean fitsShelves(int rows, int rowLength, FleetConfig fleetConfig) {
+        int[] free = new int[(rows + 1) / 2];
+        Arrays.fill(free, rowLength + 1);
+        for (ShipType type : ShipType.values()) {
+            int width = type.getSize() + 1;
+            long left = fleetConfig.getAmount(type);
+            for (int row = 0; row < free.length && left > 0; row++) {
+                long put = Math.min(left, free[row] / width);
+                free[row] -= (int) (put * width);
+                left -= put;
+            }
+            if (left > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Getting the result of the check.
+     *
+     * @return feasible or infeasible if the check is sure, unknown in other way.
+     */
+    public Feasibility getVerdict() {
+        return verdict;
+    }
+
+    /**
+     * Getting the share of the extended field taken by the ships with their halo.
+     *
+     * @return the share, bigger than 1 for surely infeasible configurations.
+     */
+    public double getLoad() {
+        return load;
+    }
+
+    /**
+     * Check if the configuration is close to the capacity of the field,
+     * so the placement may be slow or fail because of the steps limit.
+     *
+     * @return true if the fleet is placeable but the field is crowded or the check isn't sure.
+     */
+    public boolean isNearCapacity() {
+        return verdict == Feasibility.unknown || verdict == Feasibility.feasible && load > NEAR_CAPACITY_LOAD;
+    }
+
+    /**
+     * Getting the reason of the verdict.
+     *
+     * @return the text for the player.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (load %.2f, %s)", verdict, load, reason);
+    }
+
+    private static final class Key {
+        private final int sizeX;
+        private final int sizeY;
+        private final int[] amounts = new int[ShipType.values().length];
+
+        Key(int sizeX, int sizeY, FleetConfig fleetConfig) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            for (ShipType type : ShipType.values()) {
+                amounts[type.ordinal()] = fleetConfig.getAmount(type);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return sizeX == other.sizeX && sizeY == other.sizeY && Arrays.equals(amounts, other.amounts);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * sizeX + sizeY) * 31 + Arrays.hashCode(amounts);
+        }
+    }
+}
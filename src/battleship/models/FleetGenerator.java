@@ -0,0 +1,90 @@
+package battleship.models;
+
+import battleship.enums.Feasibility;
+import battleship.enums.PlacementResult;
+import battleship.enums.ShipType;
+import battleship.metrics.GameMetrics;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places fleets of one configuration for many seeds.
+ * The fleet of a seed is the same as the fleet of the GameEngine created with this seed,
+ * so strategies and performance changes can be compared on identical fleets.
+ * The battlefield, the ships and the placer are created once and reused for every seed.
+ * One generator must not be shared between threads.
+ */
+public class FleetGenerator {
+    private final BattleField battleField;
+    private final FleetPlacer placer;
+    private final Ship[] ships;
+    private final boolean isInfeasible;
+
+    /**
+     * FleetGenerator constructor.
+     *
+     * @param config parameters of the games, only the field size and the ships are used.
+     */
+    public FleetGenerator(GameConfig config) {
+        battleField = new BattleField(config.sizeX, config.sizeY);
+        placer = new FleetPlacer(battleField, new SplittableRandom(0), FleetPlacer.DEFAULT_MAX_STEPS);
+        ships = new Ship[config.fleetConfig.getWholeAmount()];
+        int j = 0;
+        // Корабли идут в том же порядке, что и во Fleet
+        for (ShipType type : ShipType.values()) {
+            for (int i = 0; i < config.fleetConfig.getAmount(type); i++) {
+                ships[j++] = new Ship(type);
+            }
+        }
+        isInfeasible = FleetFeasibility.check(config).getVerdict() == Feasibility.infeasible;
+    }
+
+    /**
+     * Placing the fleet of the seed.
+     *
+     * @param seed seed of the game.
+     * @return the result of the placement, the positions are in getShips.
+     */
+    public PlacementResult place(long seed) {
+        if (isInfeasible) {
+            GameMetrics.placementRejections.increment();
+            GameMetrics.countPlacement(PlacementResult.infeasible);
+            return PlacementResult.infeasible;
+        }
+        battleField.clearMatrix();
+        placer.setRandom(new SplittableRandom(seed));
+        return placer.place(ships);
+    }
+
+    /**
+     * Getting the ships of the last placed fleet.
+     * The same objects are reused by the next placement.
+     *
+     * @return the ships from the largest to the smallest.
+     */
+    public Ship[] getShips() {
+        return ships;
+    }
+
+    /**
+     * Placing the fleets of seeds firstSeed, firstSeed + 1, ... into the buffer.
+     * The previous content of the buffer is replaced.
+     *
+     * @param firstSeed seed of the first fleet.
+     * @param count     amount of fleets.
+     * @param into      where to write the fleets.
+     * @return amount of placed fleets.
+     */
+    public int generate(long firstSeed, int count, FleetBuffer into) {
+        into.reset(ships, count);
+        int placed = 0;
+        for (int i = 0; i < count; i++) {
+            PlacementResult result = place(firstSeed + i);
+            into.put(i, firstSeed + i, result, ships);
+            if (result == PlacementResult.placed) {
+                placed++;
+            }
+        }
+        return placed;
+    }
+}
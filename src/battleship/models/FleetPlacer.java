@@ -0,0 +1,344 @@
+package battleship.models;
+
+import battleship.enums.PlacementResult;
+import battleship.metrics.GameMetrics;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places the whole fleet with a depth-first search.
+ * Ships are placed from the largest to the smallest one,
+ * every ship tries the legal positions left by the ships placed before it
+ * and when there is no such position the search goes back to the previous ship.
+ */
+public class FleetPlacer {
+    /**
+     * Default limit of checked positions for one placement.
+     */
+    public static final long DEFAULT_MAX_STEPS = 5_000_000L;
+    // Количество перезапусков поиска в случайном порядке
+    private static final int RESTARTS = 8;
+
+    private final BattleField battleField;
+    private SplittableRandom rnd;
+    private final long maxSteps;
+    private final int sizeX;
+    private final int sizeY;
+    // Клетки, занятые кораблями или их ореолом, по биту на клетку, как в BattleField
+    private final BitPlanes blocked;
+    private long freeCells;
+    private long steps;
+    // Шаблоны масок корабля каждой глубины поиска
+    private PlacementTemplate[] templates;
+    // Биты, впервые занятые кораблем на каждой глубине поиска, чтобы снять их при возврате,
+    // у каждой глубины есть undoStride пар
+    private long[] undoWords;
+    private long[] undoMasks;
+    private int[] undoCount;
+    private int undoStride;
+    // Состояние поиска: количество стоящих кораблей и для каждой глубины
+    // текущая позиция обхода, шаг обхода и количество просмотренных позиций
+    private int depth;
+    private long positions;
+    private long[] current;
+    private long[] stride;
+    private long[] tried;
+    private int[] cellsLeft;
+    private long[] placed;
+
+    /**
+     * FleetPlacer constructor.
+     *
+     * @param battleField the battlefield to place ships into.
+     * @param rnd         random generator that shuffles positions.
+     * @param maxSteps    the maximum amount of checked positions.
+     */
+    public FleetPlacer(BattleField battleField, SplittableRandom rnd, long maxSteps) {
+        this.battleField = battleField;
+        this.rnd = rnd;
+        this.maxSteps = maxSteps;
+        sizeX = battleField.sizeX;
+        sizeY = battleField.sizeY;
+        blocked = battleField.createPlane();
+    }
+
+    /**
+     * Replacing the random generator, so the placer can be reused for another seed.
+     *
+     * @param rnd random generator that shuffles positions.
+     */
+    void setRandom(SplittableRandom rnd) {
+        this.rnd = rnd;
+    }
+
+    /**
+     * Getting an amount of positions checked by the last placement.
+     *
+     * @return the amount of steps.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Setting coordinates for every ship.
+     * The ships must be sorted from the largest to the smallest.
+     * At first the positions are tried in random order with a few restarts.
+     * A restart removes only the last placed ships, their amount doubles with every restart,
+     * so it costs as much as the removed ships and not as the whole field.
+     * If it doesn't help, the positions are tried in ascending order and equal ships
+     * are not interchanged, so the search is complete within the rest of the steps limit.
+     * The battlefield is changed only if the whole fleet was placed.
+     *
+     * @param ships ships to place.
+     * @return the result of the placement.
+     */
+    public PlacementResult place(Ship[] ships) {
+        long start = System.nanoTime();
+        PlacementResult result = placeShips(ships);
+        GameMetrics.placementTime.recordSince(start);
+        GameMetrics.placementSteps.add(steps);
+        GameMetrics.countPlacement(result);
+        return result;
+    }
+
+    private PlacementResult placeShips(Ship[] ships) {
+        steps = 0;
+        prepareTemplates(ships);
+        // Оставшееся количество клеток кораблей, начиная с i-го
+        int[] cellsLeft = this.cellsLeft;
+        for (int i = ships.length - 1; i >= 0; i--) {
+            cellsLeft[i] = cellsLeft[i + 1] + ships[i].getSize();
+        }
+        // Поле читается один раз, дальше занятые клетки только добавляются и снимаются
+        readFreeCells();
+        if (cellsLeft[0] > freeCells) {
+            return PlacementResult.infeasible;
+        }
+        // Плотная расстановка по возрастанию слишком предсказуема, поэтому пустое поле затем отражается
+        boolean emptyField = freeCells == (long) sizeX * sizeY;
+        long[] placed = this.placed;
+        positions = 2L * sizeX * sizeY;
+        depth = 0;
+        startDepth(true);
+        PlacementResult result = search(ships, cellsLeft, placed, true, maxSteps / 2 / RESTARTS);
+        for (int restart = 1; restart < RESTARTS && result == PlacementResult.budgetExhausted; restart++) {
+            GameMetrics.placementRestarts.increment();
+            undo(1 << (restart - 1));
+            startDepth(true);
+            result = search(ships, cellsLeft, placed, true, maxSteps / 2 / RESTARTS);
+        }
+        boolean flip = false;
+        if (result == PlacementResult.budgetExhausted) {
+            GameMetrics.placementRestarts.increment();
+            undo(depth);
+            startDepth(false);
+            result = search(ships, cellsLeft, placed, false, maxSteps - steps);
+            flip = emptyField;
+        }
+        if (result != PlacementResult.placed) {
+            return result;
+        }
+        boolean flipX = flip && rnd.nextBoolean();
+        boolean flipY = flip && rnd.nextBoolean();
+        for (int i = 0; i < ships.length; i++) {
+            int x = (int) (placed[i] / 2 / sizeY);
+            int y = (int) (placed[i] / 2 % sizeY);
+            boolean horizontal = placed[i] % 2 == 0;
+            int last = ships[i].getSize() - 1;
+            // После отражения верхним левым концом корабля становится другой конец
+            if (flipX) {
+                x = sizeX - 1 - x - (horizontal ? 0 : last);
+            }
+            if (flipY) {
+                y = sizeY - 1 - y - (horizontal ? last : 0);
+            }
+            ships[i].setPosition(x, y, horizontal);
+            battleField.changeMatrixAfterAddingShip(ships[i]);
+        }
+        return PlacementResult.placed;
+    }
+
+    /**
+     * Depth-first search over positions of all ships, continued from the current depth.
+     * The ships of smaller depths stand where the previous search left them and keep
+     * the positions they haven't tried yet, so the search stays complete.
+     *
+     * @param random    true to try positions in random order,
+     *                  false to try them in ascending order without interchanging equal ships.
+     * @param stepLimit the maximum amount of checked positions for this search.
+     * @return the result of the search, the positions are written into placed.
+     */
+    private PlacementResult search(Ship[] ships, int[] cellsLeft, long[] placed, boolean random, long stepLimit) {
+        long searchSteps = 0;
+        while (depth >= 0) {
+            if (depth == ships.length) {
+                return PlacementResult.placed;
+            }
+            int size = ships[depth].getSize();
+            // Одинаковые корабли взаимозаменяемы, поэтому их позиции рассматриваются по возрастанию
+            long lowerBound = !random && depth > 0 && ships[depth - 1].getSize() == size ? placed[depth - 1] : -1;
+            long position = -1;
+            while (tried[depth] < positions) {
+                long candidate = current[depth];
+                // Шаг меньше количества позиций, поэтому сумма не переполняется
+                current[depth] = (candidate + stride[depth]) % positions;
+                tried[depth]++;
+                if (candidate <= lowerBound || (size == 1 && candidate % 2 == 1)) {
+                    continue;
+                }
+                steps++;
+                if (++searchSteps > stepLimit) {
+                    return PlacementResult.budgetExhausted;
+                }
+                if (fits(candidate, depth)) {
+                    position = candidate;
+                    break;
+                }
+            }
+            if (position < 0) {
+                depth--;
+                if (depth >= 0) {
+                    release(depth);
+                }
+                continue;
+            }
+            placed[depth] = position;
+            occupy(position, depth);
+            depth++;
+            if (depth < ships.length) {
+                if (cellsLeft[depth] > freeCells) {
+                    depth--;
+                    release(depth);
+                } else {
+                    startDepth(random);
+                }
+            }
+        }
+        return PlacementResult.infeasible;
+    }
+
+    /**
+     * Removing the last placed ships and their halo.
+     * Every ship keeps only the bits it set first, so removing ships in the reverse order
+     * returns exactly the cells that are not covered by the ships left.
+     *
+     * @param ships amount of ships to remove, at most all placed ones.
+     */
+    private void undo(int ships) {
+        int target = Math.max(depth - ships, 0);
+        GameMetrics.placementUndoneShips.add(depth - target);
+        while (depth > target) {
+            depth--;
+            release(depth);
+        }
+    }
+
+    /**
+     * Reading cells which are already occupied by ships or their halo.
+     */
+    private void readFreeCells() {
+        freeCells = (long) sizeX * sizeY - battleField.readBlocked(blocked);
+    }
+
+    /**
+     * Getting the templates of all ship lengths and the undo arrays for every depth of the search.
+     * The arrays of the previous placement are reused when the fleet has the same amount of ships.
+     */
+    private void prepareTemplates(Ship[] ships) {
+        if (templates == null || templates.length != ships.length) {
+            templates = new PlacementTemplate[ships.length];
+            undoCount = new int[ships.length];
+            current = new long[ships.length];
+            stride = new long[ships.length];
+            tried = new long[ships.length];
+            cellsLeft = new int[ships.length + 1];
+            placed = new long[ships.length];
+            undoStride = 0;
+        }
+        int maxSize = 0;
+        for (int i = 0; i < ships.length; i++) {
+            int size = ships[i].getSize();
+            // Корабли упорядочены по размеру, поэтому шаблон берется из кэша только при смене длины
+            templates[i] = i > 0 && ships[i - 1].getSize() == size
+                    ? templates[i - 1] : PlacementTemplate.of(sizeX, sizeY, size);
+            maxSize = Math.max(maxSize, size);
+        }
+        if (undoStride != 2 * (maxSize + 2)) {
+            undoStride = 2 * (maxSize + 2);
+            undoWords = new long[ships.length * undoStride];
+            undoMasks = new long[ships.length * undoStride];
+        }
+    }
+
+    /**
+     * Choosing an order of positions for the ship at the current depth.
+     * The random order is a walk over all positions with a step coprime to their amount.
+     */
+    private void startDepth(boolean random) {
+        tried[depth] = 0;
+        if (!random) {
+            current[depth] = 0;
+            stride[depth] = 1;
+            return;
+        }
+        current[depth] = nextPosition();
+        long step = 1 + nextPosition();
+        while (gcd(step, positions) != 1) {
+            step++;
+        }
+        // Шаг может превысить количество позиций, по модулю обход остается тем же
+        stride[depth] = step % positions;
+    }
+
+    /**
+     * Getting a random position below the amount of positions.
+     * Fields with less than 2^31 positions use the same random values as before huge fields were supported,
+     * so a seed gives the same placement.
+     */
+    private long nextPosition() {
+        return positions <= Integer.MAX_VALUE ? rnd.nextInt((int) positions) : rnd.nextLong(positions);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Checking that every cell of the ship is inside the field and is not blocked.
+     */
+    private boolean fits(long position, int depth) {
+        long cell = position / 2;
+        return templates[depth].fits((int) (cell / sizeY), (int) (cell % sizeY), position % 2 == 0, blocked, 0);
+    }
+
+    /**
+     * Adding the ship of the depth and its halo.
+     */
+    private void occupy(long position, int depth) {
+        long cell = position / 2;
+        int at = depth * undoStride;
+        int count = templates[depth].occupy((int) (cell / sizeY), (int) (cell % sizeY), position % 2 == 0,
+                blocked, 0, undoWords, undoMasks, at);
+        undoCount[depth] = count;
+        for (int i = at; i < at + count; i++) {
+            freeCells -= Long.bitCount(undoMasks[i]);
+        }
+    }
+
+    /**
+     * Removing the ship of the depth and its halo, the ships of deeper depths are already removed.
+     */
+    private void release(int depth) {
+        int at = depth * undoStride;
+        for (int i = at; i < at + undoCount[depth]; i++) {
+            blocked.andNot(0, undoWords[i], undoMasks[i]);
+            freeCells += Long.bitCount(undoMasks[i]);
+        }
+    }
+}
@@ -1,19 +1,59 @@
 package battleship.models;
 
+import battleship.engine.EndgameSolver;
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.enums.CommandType;
+import battleship.enums.Feasibility;
+import battleship.enums.PlacementResult;
+import battleship.enums.ShipType;
+import battleship.enums.ShotResult;
+import battleship.metrics.GameMetrics;
+import battleship.storage.GameRecord;
+import battleship.storage.RecordCodec;
+import battleship.storage.SnapshotCodec;
 import battleship.utils.ArrayUtils;
+import battleship.utils.CommandTokenizer;
 
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
+/**
+ * One session of the game.
+ * All output goes to the Appendable of the session, so many sessions can live in one process.
+ * The console session also reads its commands from System.in.
+ */
 public class Game {
-    private BattleField battleField;
-    private Fleet fleet;
-    private boolean isRecoveryModEnabled;
-    private boolean isTorpedoesEnabled;
-    private int attackCount = 0;
-    private Ship lastAttackedShip;
-    private String[] gameParams;
-    private static final Scanner scanner = new Scanner(System.in);
+    /**
+     * The biggest amount of cells of one salvo.
+     */
+    public static final int MAX_SALVO_CELLS = 1 << 16;
+    private static final CommandType[] commandTypes = CommandType.values();
+    // Таблица решателя занимает мегабайты, поэтому он один на поток, а не на игру: у сервера поток ведет много сессий
+    private static final ThreadLocal<EndgameSolver> solvers = new ThreadLocal<>();
+
+    private GameEngine engine;
+    private FieldRenderer renderer = new FieldRenderer(false);
+    // Один буфер на все выводы, чтобы не собирать строку на каждую команду
+    private final Appendable out;
+    private final Scanner scanner;
+    private final boolean isFileAccessEnabled;
+    // Сид всех партий сессии, те же сид и параметры дают ту же расстановку
+    private final long seed;
+    private boolean isFinished;
+    // Клетки и результаты залпа, массивы переиспользуются между командами
+    private int[] salvoXs = new int[0];
+    private int[] salvoYs = new int[0];
+    private ShotResult[] salvoResults = new ShotResult[0];
+    // Слова текущей команды, разбор не создает объектов и не бросает исключений
+    private final CommandTokenizer command = new CommandTokenizer();
 
     /**
      * Game constructor.
@@ -24,20 +64,91 @@ public class Game {
      * @param args game parameters.
      */
     public Game(String[] args) {
-        boolean flag = true;
-        while (flag) {
-            gameParams = getCommandLineParams(args);
+        this(args, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Game constructor with the given seed.
+     * The same seed and parameters give the same placement of the fleet.
+     *
+     * @param args game parameters.
+     * @param seed seed of the random generator of the game.
+     */
+    public Game(String[] args, long seed) {
+        out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        scanner = new Scanner(System.in);
+        isFileAccessEnabled = true;
+        this.seed = seed;
+        engine = readEngine(args);
+    }
+
+    /**
+     * Creating a session of the game without the console.
+     * Commands are passed to executeCommand, the session can't read or write files.
+     *
+     * @param engine the game with the placed fleet.
+     * @param out    where the session writes its output.
+     */
+    public Game(GameEngine engine, Appendable out) {
+        this(engine, out, false);
+    }
+
+    /**
+     * Creating a session of the game without the console.
+     * Commands are passed to executeCommand.
+     *
+     * @param engine              the game with the placed fleet.
+     * @param out                 where the session writes its output.
+     * @param isFileAccessEnabled true if the commands may save and load files.
+     */
+    public Game(GameEngine engine, Appendable out, boolean isFileAccessEnabled) {
+        this.engine = engine;
+        this.out = out;
+        scanner = null;
+        this.isFileAccessEnabled = isFileAccessEnabled;
+        seed = engine.getSeed();
+    }
+
+    /**
+     * Enabling or disabling ANSI diff mode, in which only changed cells of the field are redrawn.
+     *
+     * @param isAnsiDiffModeEnabled true to enable ANSI diff mode.
+     */
+    public void setAnsiDiffModeEnabled(boolean isAnsiDiffModeEnabled) {
+        renderer = new FieldRenderer(isAnsiDiffModeEnabled);
+    }
+
+    /**
+     * Creating the game from the parameters.
+     * Attempts to create it will continue until the correct game parameters are entered,
+     * after the first failure the parameters are read from the console.
+     * Fleets that surely don't fit the field are rejected before the placement.
+     *
+     * @param args game parameters.
+     * @return the game with not yet placed fleet.
+     */
+    private GameEngine readEngine(String[] args) {
+        while (true) {
+            String[] gameParams = getCommandLineParams(args);
             try {
-                battleField = BattleField.tryParseCommandLineParams(gameParams);
-                fleet = Fleet.tryParseCommandLineParams(gameParams);
-                fleet.setBattleField(battleField);
-                isRecoveryModEnabled = Objects.equals(gameParams[8], "on");
-                isTorpedoesEnabled = !Objects.equals(gameParams[7], "0");
-                flag = false;
+                GameEngine parsed = GameEngine.tryParseCommandLineParams(gameParams, seed);
+                FleetFeasibility feasibility = FleetFeasibility.check(parsed.getConfig());
+                if (feasibility.getVerdict() == Feasibility.infeasible) {
+                    throw new Exception("Unable to set coordinates: " + feasibility.getReason());
+                }
+                parsed.setMoveLog(new MoveLog());
+                engine = parsed;
                 printBeginningText();
+                if (feasibility.isNearCapacity()) {
+                    println(String.format("Warning: the field is crowded (%.0f%% of its capacity), "
+                            + "the placement may fail", 100 * feasibility.getLoad()));
+                }
+                return parsed;
             } catch (Exception ex) {
-                System.out.println(ex.getMessage());
-                System.out.println("please, try one more time");
+                println(ex.getMessage());
+                println("please, try one more time");
+                // Те же параметры не подойдут и во второй раз
+                args = new String[0];
             }
         }
     }
@@ -58,48 +169,49 @@ public class Game {
         if (args.length == 9) {
             return args;
         } else if (args.length == 7) {
-            System.out.print("Enter torpedoes amount (0 if there are no torpedoes): ");
-            String torpedoesAmount = scanner.nextLine();
-            System.out.print("Type 'on' to enable ship recovery mod (or something else in other way): ");
-            String recoveryMod = scanner.nextLine();
+            print("Enter torpedoes amount (0 if there are no torpedoes): ");
+            String torpedoesAmount = readLine();
+            print("Type 'on' to enable ship recovery mod (or something else in other way): ");
+            String recoveryMod = readLine();
             args = ArrayUtils.concatenate(args, new String[]{torpedoesAmount, recoveryMod});
         } else if (args.length == 5) {
-            System.out.print("Enter field size separated by space:");
-            String[] sizeField = scanner.nextLine().split(" ");
-            System.out.print("Enter torpedoes amount (0 if there are no torpedoes): ");
-            String torpedoesAmount = scanner.nextLine();
-            System.out.print("Type 'on' to enable ship recovery mode (or something else in other way): ");
-            String recoveryMod = scanner.nextLine();
+            print("Enter field size separated by space:");
+            String[] sizeField = readLine().split(" ");
+            print("Enter torpedoes amount (0 if there are no torpedoes): ");
+            String torpedoesAmount = readLine();
+            print("Type 'on' to enable ship recovery mode (or something else in other way): ");
+            String recoveryMod = readLine();
             args = ArrayUtils.concatenate(sizeField,
                     ArrayUtils.concatenate(args, new String[]{torpedoesAmount, recoveryMod}));
         } else if (args.length == 2) {
-            System.out.println("Field size - " + args[0] + "на" + args[1]);
-            System.out.print("Enter the amount of ships of each type separated by a space:");
-            String[] shipsCount = scanner.nextLine().split(" ");
-            System.out.print("Enter torpedoes amount (0 if there are no torpedoes): ");
-            String torpedoesAmount = scanner.nextLine();
-            System.out.print("Type 'on' to enable ship recovery mode (or something else in other way): ");
-            String recoveryMod = scanner.nextLine();
+            println("Field size - " + args[0] + "на" + args[1]);
+            print("Enter the amount of ships of each type separated by a space:");
+            String[] shipsCount = readLine().split(" ");
+            print("Enter torpedoes amount (0 if there are no torpedoes): ");
+            String torpedoesAmount = readLine();
+            print("Type 'on' to enable ship recovery mode (or something else in other way): ");
+            String recoveryMod = readLine();
             args = ArrayUtils.concatenate(args,
                     ArrayUtils.concatenate(shipsCount, new String[]{torpedoesAmount, recoveryMod}));
         } else if (args.length == 0) {
-            System.out.println("you can type 'exit' to leave the game");
-            System.out.print("Enter the size of the field, separated by a space:");
-            String[] sizeField = scanner.nextLine().split(" ");
+            println("you can type 'exit' to leave the game");
+            print("Enter the size of the field, separated by a space:");
+            String[] sizeField = readLine().split(" ");
             if (Objects.equals(sizeField[0], "exit")) {
+                flush();
                 System.exit(0);
             }
-            System.out.print("Enter the amount of ships of each type separated by a space:");
-            String[] shipsCount = scanner.nextLine().split(" ");
-            System.out.print("Enter torpedoes amount (0 if there are no torpedoes): ");
-            String torpedoesAmount = scanner.nextLine();
-            System.out.print("Type 'on' to enable ship recovery mode (or something else in other way): ");
-            String recoveryMod = scanner.nextLine();
+            print("Enter the amount of ships of each type separated by a space:");
+            String[] shipsCount = readLine().split(" ");
+            print("Enter torpedoes amount (0 if there are no torpedoes): ");
+            String torpedoesAmount = readLine();
+            print("Type 'on' to enable ship recovery mode (or something else in other way): ");
+            String recoveryMod = readLine();
             args = ArrayUtils.concatenate(sizeField,
                     ArrayUtils.concatenate(shipsCount, new String[]{torpedoesAmount, recoveryMod}));
         } else {
-            System.out.println("Incorrect amount of console parameters");
-            System.out.println("Try to input it through console");
+            println("Incorrect amount of console parameters");
+            println("Try to input it through console");
             return getCommandLineParams(new String[0]);
         }
         return args;
@@ -109,16 +221,18 @@ public class Game {
      * Printing an introductory text with information about game parameters.
      */
     public void printBeginningText() {
-        System.out.println("GAME PARAMETERS: ");
-        System.out.println();
-        System.out.println("Field size - " + gameParams[0] + " " + gameParams[1]);
-        System.out.println("Amount of:");
-        System.out.println("\tCarriers\t-\t" + gameParams[2]);
-        System.out.println("\tBattleships\t-\t" + gameParams[3]);
-        System.out.println("\tCruisers\t-\t" + gameParams[4]);
-        System.out.println("\tDestroyers\t-\t" + gameParams[5]);
-        System.out.println("\tSubmarines\t-\t" + gameParams[6]);
-        System.out.println();
+        println("GAME PARAMETERS: ");
+        println();
+        GameConfig config = engine.getConfig();
+        println("Field size - " + config.sizeX + " " + config.sizeY);
+        println("Amount of:");
+        println("\tCarriers\t-\t" + config.fleetConfig.getAmount(ShipType.Carrier));
+        println("\tBattleships\t-\t" + config.fleetConfig.getAmount(ShipType.Battleship));
+        println("\tCruisers\t-\t" + config.fleetConfig.getAmount(ShipType.Cruiser));
+        println("\tDestroyers\t-\t" + config.fleetConfig.getAmount(ShipType.Destroyer));
+        println("\tSubmarines\t-\t" + config.fleetConfig.getAmount(ShipType.Submarine));
+        println("Seed - " + engine.getSeed());
+        println();
     }
 
     /**
@@ -127,25 +241,95 @@ public class Game {
      */
     public void readCommand() {
         showField();
-        System.out.println("type 'help' if you unfamiliar");
-        System.out.print("Enter command: ");
-        String[] command = scanner.nextLine().split(" ");
-        switch (command[0]) {
-            case "attack" -> {
-                tryAttack(command);
+        println("type 'help' if you unfamiliar");
+        print("Enter command: ");
+        executeCommand(readLine());
+        flush();
+    }
+
+    /**
+     * Executing one game command.
+     * The output of the command is written to the output of the session.
+     *
+     * @param line the command line, it isn't kept after the call.
+     */
+    public void executeCommand(CharSequence line) {
+        command.reset(line);
+        CommandType type = findCommandType();
+        if (type == null) {
+            println("Incorrect command");
+            return;
+        }
+        switch (type) {
+            case attack -> {
+                tryAttack();
             }
-            case "show_fleet" -> {
-                System.out.println("Fleet");
+            case salvo -> trySalvo();
+            case show_field -> tryShowField();
+            case hint -> showHint();
+            case show_fleet -> {
+                println("Fleet");
                 showFleet();
             }
-            case "exit" -> {
-                System.out.println("Exit......");
-                System.exit(0);
+            case exit -> {
+                resetTerminal();
+                println("Exit......");
+                isFinished = true;
             }
-            case "help" -> {
+            case save, load, save_record -> executeFileCommand(type);
+            case help -> {
                 showCommands();
             }
-            default -> System.out.println("Incorrect command");
+        }
+    }
+
+    /**
+     * Getting the type of the current command by its first word.
+     *
+     * @return the type or null if there is no such command.
+     */
+    private CommandType findCommandType() {
+        for (CommandType type : commandTypes) {
+            if (command.is(0, type.name())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Getting the current game of the session, it changes when a game is loaded.
+     *
+     * @return the game.
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Check if the session is over, because the player won or left.
+     *
+     * @return true if no more commands are expected.
+     */
+    public boolean isFinished() {
+        return isFinished;
+    }
+
+    private void executeFileCommand(CommandType type) {
+        if (!isFileAccessEnabled) {
+            println("Command is not available");
+            return;
+        }
+        if (command.size() < 2) {
+            println("Incorrect " + type + " command");
+            return;
+        }
+        String fileName = command.getString(1);
+        switch (type) {
+            case save -> trySave(fileName);
+            case load -> tryLoad(fileName);
+            case save_record -> trySaveRecord(fileName);
+            default -> println("Incorrect command");
         }
     }
 
@@ -154,133 +338,444 @@ public class Game {
      * Summon trySetFleet method.
      */
     public void start() {
-        System.out.println("Ships go out to sea......");
-        if (!fleet.trySetFleet()) {
-            getCommandLineParams(new String[0]);
+        println("Ships go out to sea......");
+        PlacementResult result;
+        while ((result = engine.placeFleet()) != PlacementResult.placed) {
+            println(result == PlacementResult.infeasible
+                    ? "Unable to set coordinates"
+                    : "Unable to set coordinates in reasonable time");
+            println("Input another parameters");
+            engine = readEngine(new String[0]);
+            println("Ships go out to sea......");
+        }
+    }
+
+    /**
+     * Saving the current game into the file.
+     *
+     * @param path the file.
+     * @throws IOException throws if the file can't be written.
+     */
+    public void save(Path path) throws IOException {
+        new SnapshotCodec().save(engine, path);
+    }
+
+    /**
+     * Replacing the current game by the game saved in the file.
+     *
+     * @param path the file.
+     * @throws Exception throws if the file can't be read or it is not a saved game.
+     */
+    public void load(Path path) throws Exception {
+        engine = new SnapshotCodec().load(path);
+        renderer.invalidate();
+    }
+
+    /**
+     * Saving the seed and all moves of the current game into the file,
+     * so the game can be replayed move by move.
+     *
+     * @param path the file.
+     * @throws Exception throws if the file can't be written or moves of the game are not recorded.
+     */
+    public void saveRecord(Path path) throws Exception {
+        new RecordCodec().save(GameRecord.of(engine), path);
+    }
+
+    private void trySaveRecord(String fileName) {
+        try {
+            saveRecord(Path.of(fileName));
+            println("Record saved");
+        } catch (Exception ex) {
+            println("Unable to save the record: " + ex.getMessage());
+        }
+    }
+
+    private void trySave(String fileName) {
+        try {
+            save(Path.of(fileName));
+            println("Game saved");
+        } catch (Exception ex) {
+            println("Unable to save the game: " + ex.getMessage());
+        }
+    }
+
+    private void tryLoad(String fileName) {
+        try {
+            load(Path.of(fileName));
+            println("Game loaded");
+        } catch (Exception ex) {
+            println("Unable to load the game: " + ex.getMessage());
         }
     }
 
     /**
      * In this method, an attack is called if the parameters are correct.
      * Otherwise, there will be no attack, and an error message will be displayed.
-     *
-     * @param attackParams in fact, this is the same game command line.
+     * The parameters are taken from the words of the current command.
+     */
+    private void tryAttack() {
+        long start = System.nanoTime();
+        try {
+            parseAttack();
+        } finally {
+            GameMetrics.attackTime.recordSince(start);
+        }
+    }
+
+    private void parseAttack() {
+        boolean isTorpedo = command.is(1, "-T");
+        int first = isTorpedo ? 2 : 1;
+        if (!command.isInt(first) || !command.isInt(first + 1)) {
+            println("Incorrect attack command");
+            return;
+        }
+        int x = command.getInt(first, 0);
+        int y = command.getInt(first + 1, 0);
+        if (isTorpedo) {
+            attackTorpedo(x - 1, y - 1);
+        } else {
+            attack(x - 1, y - 1);
+        }
+    }
+
+    /**
+     * Firing at a list of cells or at every cell of a rectangle with one command.
+     * The cells are shot one after another and the results are printed in one line.
+     * The cells are taken from the words of the current command.
      */
-    private void tryAttack(String[] attackParams) {
-        if (Objects.equals(attackParams[1], "-T")) {
-            if (isTorpedoesEnabled && fleet.getTorpedoesAmount() != 0) {
-                try {
-                    int x = Integer.parseInt(attackParams[2]);
-                    int y = Integer.parseInt(attackParams[3]);
-                    attackTorpedo(x - 1, y - 1);
-                } catch (Exception ex) {
-                    System.out.println("Incorrect attack command");
+    private void trySalvo() {
+        long start = System.nanoTime();
+        try {
+            parseSalvo();
+        } finally {
+            GameMetrics.salvoTime.recordSince(start);
+        }
+    }
+
+    private void parseSalvo() {
+        boolean isRectangle = command.is(1, "-R");
+        int words = command.size();
+        int count;
+        if (isRectangle) {
+            if (words != 6 || !areInts(2, 6)) {
+                println("Incorrect salvo command");
+                return;
+            }
+            int x1 = command.getInt(2, 0);
+            int y1 = command.getInt(3, 0);
+            int x2 = command.getInt(4, 0);
+            int y2 = command.getInt(5, 0);
+            // Углы вне поля отвергаются до перебора, иначе счетчик цикла переполняется у Integer.MAX_VALUE
+            BattleField battleField = engine.getBattleField();
+            if (Math.min(x1, x2) < 1 || Math.max(x1, x2) > battleField.sizeX
+                    || Math.min(y1, y2) < 1 || Math.max(y1, y2) > battleField.sizeY) {
+                println("Incorrect coordinates!");
+                return;
+            }
+            long cells = (Math.abs((long) x2 - x1) + 1) * (Math.abs((long) y2 - y1) + 1);
+            if (cells > MAX_SALVO_CELLS) {
+                println("Salvo is too big, at most " + MAX_SALVO_CELLS + " cells");
+                return;
+            }
+            ensureSalvoCapacity((int) cells);
+            count = 0;
+            for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                    salvoXs[count] = x - 1;
+                    salvoYs[count++] = y - 1;
                 }
-            } else {
-                System.out.println("no torpedoes available");
             }
         } else {
-            try {
-                int x = Integer.parseInt(attackParams[1]);
-                int y = Integer.parseInt(attackParams[2]);
-                attack(x - 1, y - 1);
-            } catch (Exception ex) {
-                System.out.println("Incorrect attack command");
+            if (words < 3 || words % 2 == 0 || !areInts(1, words)) {
+                println("Incorrect salvo command");
+                return;
+            }
+            count = (words - 1) / 2;
+            if (count > MAX_SALVO_CELLS) {
+                println("Salvo is too big, at most " + MAX_SALVO_CELLS + " cells");
+                return;
             }
+            ensureSalvoCapacity(count);
+            for (int i = 0; i < count; i++) {
+                salvoXs[i] = command.getInt(1 + 2 * i, 0) - 1;
+                salvoYs[i] = command.getInt(2 + 2 * i, 0) - 1;
+            }
+        }
+        int fired = engine.salvo(salvoXs, salvoYs, count, salvoResults);
+        printSalvoResults(fired);
+    }
+
+    /**
+     * Check if the words of the current command from (inclusive) to (exclusive) are ints.
+     */
+    private boolean areInts(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!command.isInt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureSalvoCapacity(int count) {
+        if (salvoXs.length < count) {
+            salvoXs = new int[count];
+            salvoYs = new int[count];
+            salvoResults = new ShotResult[count];
         }
     }
 
+    /**
+     * Printing the results of the salvo, one symbol for every shot cell:
+     * '*' - hit, '#' - miss, 'x' - sunk, '=' - already attacked, 'r' - miss and recovery, '!' - outside the field.
+     */
+    private void printSalvoResults(int fired) {
+        int hits = 0;
+        int sunk = 0;
+        try {
+            out.append("Salvo ");
+            for (int i = 0; i < fired; i++) {
+                ShotResult result = salvoResults[i];
+                out.append(getSalvoGlyph(result));
+                if (result == ShotResult.hit) {
+                    hits++;
+                } else if (result == ShotResult.sunk || result == ShotResult.win) {
+                    hits++;
+                    sunk++;
+                }
+                focus(salvoXs[i], salvoYs[i], result);
+            }
+            out.append(System.lineSeparator());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        println(fired + " shots, " + hits + " hits, " + sunk + " ships sunk");
+        if (fired > 0 && salvoResults[fired - 1] == ShotResult.win) {
+            win();
+        }
+    }
+
+    private static char getSalvoGlyph(ShotResult result) {
+        return switch (result) {
+            case hit -> '*';
+            case sunk, win -> 'x';
+            case repeat -> '=';
+            case recovered -> 'r';
+            case invalid, noTorpedoes -> '!';
+            default -> '#';
+        };
+    }
+
     /**
      * Main attack method.
      *
      * @param x the x coordinate of matrix.
      * @param y the y coordinate of matrix.
-     * @return true if you are hit,
-     * false otherwise.
+     * @return the result of the attack.
      */
-    public boolean attack(int x, int y) {
-        if (x < battleField.sizeX && x >= 0 && y < battleField.sizeY && y >= 0) {
-            attackCount++;
-            int item = battleField.matrix[x][y];
-            if (item == 9) {
-                System.out.println("Hit");
-                battleField.matrix[x][y] = 1;
-                lastAttackedShip = fleet.getHitShip(x, y);
-                lastAttackedShip.hit();
-                if (lastAttackedShip.isSunk()) {
-                    System.out.println("You just have sunk a " + lastAttackedShip);
-                    battleField.changeMatrixAfterSunk(lastAttackedShip.getCoordinates());
-                    if (fleet.areAllShipsSunk()) {
-                        win();
-                    }
-                }
-                return true;
-            } else if (item == 2 || item == 1 || item == 3) {
-                System.out.println("You already strike this cell");
-            } else {
-                // Если recovery mode включен, предыдущий корабль не был потоплен,
-                // вы сначала попали по кораблю, а потом промахнулись, то он восстановится
-                if (isRecoveryModEnabled && lastAttackedShip != null && !lastAttackedShip.isSunk()) {
-                    battleField.changeMatrixAfterRecover(lastAttackedShip.getCoordinates());
-                    lastAttackedShip.recover();
-                    System.out.println("Miss");
-                    System.out.println("Due to your missing the ship " + lastAttackedShip + " was recover");
-                } else {
-                    System.out.println("Miss");
-                    battleField.matrix[x][y] = 2;
-                }
-            }
-        } else {
-            System.out.println("Incorrect coordinates!");
-            System.out.println("Try one more time");
-        }
-        return false;
+    public ShotResult attack(int x, int y) {
+        ShotResult result = engine.fire(x, y);
+        focus(x, y, result);
+        printShotResult(result);
+        return result;
     }
 
     /**
      * Torpedo attack method.
-     * If our shot was successful, that is, the main attack method is return true,
-     * then the attacked ship will sink.
+     * If our shot was successful, then the attacked ship will sink.
      *
      * @param x the x coordinate.
      * @param y the y coordinate.
      */
     private void attackTorpedo(int x, int y) {
-        fleet.spendTorpedo();
-        if (attack(x, y)) {
-            Ship sh = fleet.getHitShip(x, y);
-            sh.sunk();
-            battleField.changeMatrixAfterSunk(sh.getCoordinates());
-            System.out.println("You just have sunk a " + sh);
-            if (fleet.areAllShipsSunk()) {
-                win();
+        ShotResult result = engine.torpedo(x, y);
+        focus(x, y, result);
+        printShotResult(result);
+    }
+
+    /**
+     * Moving the window of a big field to the attacked cell, so the player sees the result.
+     */
+    private void focus(int x, int y, ShotResult result) {
+        if (result != ShotResult.invalid && result != ShotResult.noTorpedoes) {
+            renderer.focus(x, y);
+        }
+    }
+
+    /**
+     * Printing the message about the result of the shot.
+     *
+     * @param result the result of the shot.
+     */
+    private void printShotResult(ShotResult result) {
+        switch (result) {
+            case hit -> println("Hit");
+            case sunk, win -> {
+                println("Hit");
+                println("You just have sunk a " + engine.getLastAttackedShip());
+                if (result == ShotResult.win) {
+                    win();
+                }
+            }
+            case repeat -> println("You already strike this cell");
+            case miss -> println("Miss");
+            case recovered -> {
+                println("Miss");
+                println("Due to your missing the ship " + engine.getLastAttackedShip() + " was recover");
             }
+            case invalid -> {
+                println("Incorrect coordinates!");
+                println("Try one more time");
+            }
+            case noTorpedoes -> println("no torpedoes available");
         }
     }
 
     private void win() {
         showField();
-        System.out.println("Congratulations!!");
-        System.out.println("You win!");
-        System.out.println("You was needed in " + attackCount + " attacks");
-        System.exit(0);
+        println("Congratulations!!");
+        println("You win!");
+        println("You was needed in " + engine.getAttackCount() + " attacks");
+        resetTerminal();
+        isFinished = true;
+    }
+
+    /**
+     * Showing the field, if the coordinates are given, the window of a big field is moved to them.
+     * The coordinates are taken from the words of the current command.
+     */
+    private void tryShowField() {
+        if (command.size() >= 3) {
+            if (!command.isInt(1) || !command.isInt(2)) {
+                println("Incorrect show_field command");
+                return;
+            }
+            int x = command.getInt(1, 0);
+            int y = command.getInt(2, 0);
+            BattleField battleField = engine.getBattleField();
+            if (x < 1 || x > battleField.sizeX || y < 1 || y > battleField.sizeY) {
+                println("Incorrect coordinates!");
+                return;
+            }
+            renderer.focus(x - 1, y - 1);
+        }
+        showField();
     }
 
-    private void showField() {
-        System.out.println("Field");
-        System.out.println(battleField);
+    /**
+     * Printing the cell advised by the endgame solver and the expected amount of shots to win.
+     * The solver sees only the field shown to the player and the types of sunken ships.
+     * Games played by one thread share the solver, its advice doesn't depend on earlier calls.
+     */
+    private void showHint() {
+        EndgameSolver solver = solvers.get();
+        if (solver == null || solver.getConfig() != engine.getConfig()) {
+            solver = new EndgameSolver(engine.getConfig());
+            solvers.set(solver);
+        }
+        int cell = solver.advise(engine);
+        if (cell < 0) {
+            println("No hint: too many possible layouts of the remaining ships");
+            return;
+        }
+        int sizeY = engine.getBattleField().sizeY;
+        String hint = "Hint - attack " + (cell / sizeY + 1) + " " + (cell % sizeY + 1);
+        if (solver.isExact()) {
+            hint += String.format(", %.2f shots to win on average", solver.getExpectedShots());
+        } else {
+            hint += ", the most probable cell";
+        }
+        println(hint);
+    }
+
+    /**
+     * Showing the field as it is shown before every console command.
+     */
+    public void showField() {
+        try {
+            if (renderer.isAnsiDiffModeEnabled()) {
+                renderer.render(engine.getBattleField(), out);
+            } else {
+                out.append("Field");
+                out.append(System.lineSeparator());
+                renderer.render(engine.getBattleField(), out);
+                out.append(System.lineSeparator());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
     private void showFleet() {
-        System.out.println(battleField.toHackString());
+        try {
+            renderer.renderHack(engine.getBattleField(), out);
+            out.append(System.lineSeparator());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returning the usual scrolling of the terminal before leaving the game.
+     */
+    private void resetTerminal() {
+        try {
+            renderer.reset(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void println(String line) {
+        print(line);
+        println();
+    }
+
+    private void println() {
+        print(System.lineSeparator());
+    }
+
+    private void print(String text) {
+        try {
+            out.append(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void flush() {
+        if (out instanceof Flushable) {
+            try {
+                ((Flushable) out).flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Reading the next line from the console, everything written before is shown first.
+     */
+    private String readLine() {
+        flush();
+        return scanner.nextLine();
     }
 
     private void showCommands() {
-        System.out.println("Available commands:");
-        System.out.println("attack x y\t\t-\tcause attack to cell x y");
-        System.out.println("attack -T x y\t\t-\tcause torpedo attack to cell x y");
-        System.out.println("exit\t\t-\tleave game");
-        System.out.println("help\t\t-\tget look at the available commands");
-        System.out.println();
+        println("Available commands:");
+        println("attack x y\t\t-\tcause attack to cell x y");
+        println("attack -T x y\t\t-\tcause torpedo attack to cell x y");
+        println("salvo x1 y1 x2 y2 ...\t-\tattack every listed cell with one command");
+        println("salvo -R x1 y1 x2 y2\t-\tattack every cell of the rectangle with corners x1 y1 and x2 y2");
+        println("show_field\t\t-\tshow the field");
+        println("show_field x y\t\t-\tshow the window of a big field around cell x y");
+        println("hint\t\t\t-\tadvise the cell to attack when few ships are left");
+        println("save file\t\t-\tsave the game into the file");
+        println("load file\t\t-\tcontinue the game saved in the file");
+        println("save_record file\t-\tsave the seed and all moves of the game into the file");
+        println("exit\t\t-\tleave game");
+        println("help\t\t-\tget look at the available commands");
+        println();
     }
 }
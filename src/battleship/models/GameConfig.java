@@ -0,0 +1,55 @@
+package battleship.models;
+
+import java.util.Objects;
+
+/**
+ * Immutable parameters of a game: field size, fleet and modes.
+ */
+public final class GameConfig {
+    public final int sizeX;
+    public final int sizeY;
+    public final FleetConfig fleetConfig;
+    public final boolean isRecoveryModEnabled;
+
+    /**
+     * GameConfig constructor.
+     *
+     * @param sizeX                amount of rows.
+     * @param sizeY                amount of columns.
+     * @param fleetConfig          amounts of ships and torpedoes.
+     * @param isRecoveryModEnabled true if damaged ships are recovered after a miss.
+     * @throws Exception throws if the field size is not positive.
+     */
+    public GameConfig(int sizeX, int sizeY, FleetConfig fleetConfig, boolean isRecoveryModEnabled) throws Exception {
+        if (sizeX <= 0 || sizeY <= 0) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.fleetConfig = fleetConfig;
+        this.isRecoveryModEnabled = isRecoveryModEnabled;
+    }
+
+    /**
+     * Parsing a game's parameters into the GameConfig object.
+     *
+     * @param args all 9 game parameters.
+     * @return GameConfig object.
+     * @throws Exception throws if it is impossible to create an object due to incorrect parameters.
+     */
+    public static GameConfig tryParseCommandLineParams(String[] args) throws Exception {
+        if (args == null || args.length != 9) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        int sizeX;
+        int sizeY;
+        try {
+            sizeX = Integer.parseInt(args[0]);
+            sizeY = Integer.parseInt(args[1]);
+        } catch (Exception ex) {
+            throw new Exception("Incorrect command line parameters");
+        }
+        FleetConfig fleetConfig = FleetConfig.tryParseCommandLineParams(args);
+        return new GameConfig(sizeX, sizeY, fleetConfig, Objects.equals(args[8], "on"));
+    }
+}
@@ -0,0 +1,165 @@
+package battleship.models;
+
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.enums.PlacementResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Playing a script of game commands without the console.
+ * Commands are read in big blocks from a file or the standard input, one per line,
+ * and are executed as the console game executes them, but without prompts and
+ * without showing the field before every command. All output goes through one big buffer,
+ * and when the script ends or the game is over, a summary is printed.
+ */
+public class GameScript {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Game game;
+    private final Writer out;
+    private final boolean isFieldShown;
+    private long commands;
+    private long skipped;
+    private long winCommand = -1;
+
+    /**
+     * GameScript constructor.
+     *
+     * @param engine       the game with the placed fleet.
+     * @param out          where the output of the commands and the summary are written.
+     * @param isFieldShown true to show the field after every command, as the console game does.
+     */
+    public GameScript(GameEngine engine, Writer out, boolean isFieldShown) {
+        this.out = out;
+        this.isFieldShown = isFieldShown;
+        game = new Game(engine, out, true);
+    }
+
+    /**
+     * Executing all commands of the script.
+     * Empty lines are skipped, lines after the win or the exit command are counted, but not executed.
+     *
+     * @param in the script.
+     * @throws IOException throws if the script can't be read or the output can't be written.
+     */
+    public void run(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (game.isFinished()) {
+                skipped++;
+                continue;
+            }
+            commands++;
+            game.executeCommand(line.strip());
+            if (game.getEngine().isOver() && winCommand < 0) {
+                winCommand = commands;
+            }
+            if (isFieldShown && !game.isFinished()) {
+                game.showField();
+            }
+        }
+    }
+
+    /**
+     * Writing the summary of the script and flushing the output.
+     *
+     * @param nanos time the script took.
+     * @throws IOException throws if the output can't be written.
+     */
+    public void printSummary(long nanos) throws IOException {
+        GameEngine engine = game.getEngine();
+        Fleet fleet = engine.getFleet();
+        int ships = fleet.getShips().length;
+        String result;
+        if (winCommand >= 0) {
+            result = "win at command " + winCommand;
+        } else if (game.isFinished()) {
+            result = "exit";
+        } else {
+            result = "not finished";
+        }
+        String nl = System.lineSeparator();
+        out.write("Script summary" + nl);
+        out.write("\tcommands\t-\t" + commands + (skipped > 0 ? " (" + skipped + " skipped after the end)" : "") + nl);
+        out.write("\tattacks\t\t-\t" + engine.getAttackCount() + nl);
+        out.write("\tships sunk\t-\t" + (ships - fleet.getRemainingShips()) + " of " + ships + nl);
+        out.write("\tresult\t\t-\t" + result + nl);
+        out.write(String.format("\ttime\t\t-\t%.3f ms, %.0f commands/s%n",
+                nanos / 1e6, commands == 0 ? 0.0 : commands * 1e9 / Math.max(nanos, 1)));
+        out.flush();
+    }
+
+    /**
+     * Running the script from the command line.
+     * Parameters are the script file or '-' for the standard input, then optionally --seed seed
+     * and --show, then all 9 game parameters.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        // Вывод идет мимо System.out, чтобы не синхронизироваться и не сбрасывать буфер на каждой строке
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            String source = args[0];
+            long seed = System.nanoTime();
+            boolean isFieldShown = false;
+            int i = 1;
+            while (i < args.length && args[i].startsWith("--")) {
+                if (Objects.equals(args[i], "--seed")) {
+                    seed = Long.parseLong(args[i + 1]);
+                    i += 2;
+                } else if (Objects.equals(args[i], "--show")) {
+                    isFieldShown = true;
+                    i++;
+                } else {
+                    throw new Exception("Unknown option " + args[i]);
+                }
+            }
+            if (args.length - i != 9) {
+                throw new Exception("Incorrect amount of game parameters");
+            }
+            GameEngine engine = GameEngine.tryParseCommandLineParams(Arrays.copyOfRange(args, i, args.length), seed);
+            if (engine.placeFleet() != PlacementResult.placed) {
+                throw new Exception("Unable to set coordinates");
+            }
+            engine.setMoveLog(new MoveLog());
+            GameScript script = new GameScript(engine, out, isFieldShown);
+            long start = System.nanoTime();
+            try (Reader in = Objects.equals(source, "-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : new InputStreamReader(Files.newInputStream(Path.of(source)), StandardCharsets.UTF_8)) {
+                script.run(in);
+            }
+            script.printSummary(System.nanoTime() - start);
+        } catch (Exception ex) {
+            try {
+                out.write((ex.getMessage() == null ? "Incorrect script parameters" : ex.getMessage())
+                        + System.lineSeparator());
+                out.write("Usage: --script file|- [--seed seed] [--show] sizeX sizeY carriers battleships "
+                        + "cruisers destroyers submarines torpedoes recovery" + System.lineSeparator());
+                out.flush();
+            } catch (IOException ignored) {
+                // Выводить ошибку больше некуда
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package battleship.models;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bit masks of every position of a ship of one length on a field of one size.
+ * The cell (x, y) is the bit number x * sizeY + y of a bit plane, as in BattleField,
+ * the planes may be dense or chunked.
+ * For every position two sets of (word number, mask) pairs are known: the footprint with the cells
+ * of the ship and the zone with the ship and its halo. So checking a position is an intersection of
+ * a few words with the plane of blocked cells, and marking a ship is an OR of a few words.
+ * <p>
+ * The masks depend only on the field size and the ship length, so for fields up to MAX_CACHED_CELLS
+ * they are built once and shared by all games through a cache, the least recently used templates
+ * are evicted when the cache grows too big. For bigger fields the template computes the masks
+ * of the asked position row by row on the fly.
+ */
+public final class PlacementTemplate {
+    /**
+     * The biggest field for which the masks of all positions are built in advance.
+     */
+    public static final int MAX_CACHED_CELLS = 1 << 14;
+    // Ограничение на общее количество пар (слово, маска) во всех шаблонах кэша
+    private static final long MAX_CACHED_PAIRS = 1L << 22;
+    private static final Map<Long, PlacementTemplate> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedPairs;
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int length;
+    // Пары позиции i лежат в [start[i], start[i + 1]), у позиций за пределами поля пар нет
+    private final int[] footStart;
+    private final int[] footWords;
+    private final long[] footMasks;
+    private final int[] zoneStart;
+    private final int[] zoneWords;
+    private final long[] zoneMasks;
+
+    private PlacementTemplate(int sizeX, int sizeY, int length, boolean isPrecomputed) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.length = length;
+        if (!isPrecomputed) {
+            footStart = footWords = zoneStart = zoneWords = null;
+            footMasks = zoneMasks = null;
+            return;
+        }
+        int positions = 2 * sizeX * sizeY;
+        footStart = new int[positions + 1];
+        zoneStart = new int[positions + 1];
+        for (int p = 0; p < positions; p++) {
+            footStart[p + 1] = footStart[p] + collect(p, false, null, null, 0);
+            zoneStart[p + 1] = zoneStart[p] + collect(p, true, null, null, 0);
+        }
+        footWords = new int[footStart[positions]];
+        footMasks = new long[footStart[positions]];
+        zoneWords = new int[zoneStart[positions]];
+        zoneMasks = new long[zoneStart[positions]];
+        for (int p = 0; p < positions; p++) {
+            collect(p, false, footWords, footMasks, footStart[p]);
+            collect(p, true, zoneWords, zoneMasks, zoneStart[p]);
+        }
+    }
+
+    /**
+     * Getting the template of the ship length for the field size.
+     * Templates of fields up to MAX_CACHED_CELLS are shared, bigger fields get a new template
+     * without precomputed masks every time, it is cheap to create.
+     *
+     * @param sizeX  amount of rows.
+     * @param sizeY  amount of columns.
+     * @param length length of the ship.
+     * @return the template.
+     */
+    public static PlacementTemplate of(int sizeX, int sizeY, int length) {
+        if ((long) sizeX * sizeY > MAX_CACHED_CELLS) {
+            return new PlacementTemplate(sizeX, sizeY, length, false);
+        }
+        // Размеры не больше 2^14, поэтому ключ однозначен
+        Long key = (long) sizeX << 40 | (long) sizeY << 20 | length;
+        synchronized (cache) {
+            PlacementTemplate template = cache.get(key);
+            if (template != null) {
+                return template;
+            }
+        }
+        // Шаблон строится вне блокировки, если два потока построят его одновременно, останется один
+        PlacementTemplate built = new PlacementTemplate(sizeX, sizeY, length, true);
+        synchronized (cache) {
+            PlacementTemplate template = cache.get(key);
+            if (template != null) {
+                return template;
+            }
+            cache.put(key, built);
+            cachedPairs += built.getPairs();
+            Iterator<PlacementTemplate> eldest = cache.values().iterator();
+            while (cachedPairs > MAX_CACHED_PAIRS && cache.size() > 1) {
+                cachedPairs -= eldest.next().getPairs();
+                eldest.remove();
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Getting the length of the ship of the template.
+     *
+     * @return the length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Check if the ship can stand at the position: it is inside the field
+     * and none of its cells is set in the plane.
+     *
+     * @param x          the x coordinate of the upper left cell.
+     * @param y          the y coordinate of the upper left cell.
+     * @param horizontal true if the ship goes along the row.
+     * @param planes     the planes.
+     * @param plane      number of the plane of blocked cells.
+     * @return true if the ship fits.
+     */
+    boolean fits(int x, int y, boolean horizontal, BitPlanes planes, int plane) {
+        if (!isInside(x, y, horizontal)) {
+            return false;
+        }
+        if (footStart != null) {
+            int p = positionOf(x, y, horizontal);
+            for (int i = footStart[p]; i < footStart[p + 1]; i++) {
+                if ((planes.get(plane, footWords[i]) & footMasks[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int lastX = horizontal ? x : x + length - 1;
+        int lastY = horizontal ? y + length - 1 : y;
+        for (int row = x; row <= lastX; row++) {
+            long from = (long) row * sizeY + y;
+            long to = (long) row * sizeY + lastY + 1;
+            for (long w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+                if ((planes.get(plane, w) & wordMask(from, to, w)) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Setting the cells of the ship and its halo in the plane.
+     * Only bits that were not set before are written into the undo arrays,
+     * so clearing them returns the plane to the previous state.
+     *
+     * @param x          the x coordinate of the upper left cell.
+     * @param y          the y coordinate of the upper left cell.
+     * @param horizontal true if the ship goes along the row.
+     * @param planes     the planes.
+     * @param plane      number of the plane of blocked cells.
+     * @param undoWords  where to write word numbers, there must be 2 * (length + 2) elements from undoAt.
+     * @param undoMasks  where to write newly set bits of the words.
+     * @param undoAt     index of the first written pair.
+     * @return amount of written pairs.
+     */
+    int occupy(int x, int y, boolean horizontal, BitPlanes planes, int plane,
+               long[] undoWords, long[] undoMasks, int undoAt) {
+        int count = 0;
+        if (zoneStart != null) {
+            int p = positionOf(x, y, horizontal);
+            for (int i = zoneStart[p]; i < zoneStart[p + 1]; i++) {
+                long added = zoneMasks[i] & ~planes.get(plane, zoneWords[i]);
+                if (added != 0) {
+                    planes.or(plane, zoneWords[i], added);
+                    undoWords[undoAt + count] = zoneWords[i];
+                    undoMasks[undoAt + count++] = added;
+                }
+            }
+            return count;
+        }
+        int lastX = horizontal ? x : x + length - 1;
+        int lastY = horizontal ? y + length - 1 : y;
+        int fromY = Math.max(y - 1, 0);
+        int toY = Math.min(lastY + 1, sizeY - 1);
+        for (int row = Math.max(x - 1, 0); row <= Math.min(lastX + 1, sizeX - 1); row++) {
+            long from = (long) row * sizeY + fromY;
+            long to = (long) row * sizeY + toY + 1;
+            for (long w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+                long added = wordMask(from, to, w) & ~planes.get(plane, w);
+                if (added != 0) {
+                    planes.or(plane, w, added);
+                    undoWords[undoAt + count] = w;
+                    undoMasks[undoAt + count++] = added;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marking the ship in the ship plane and its halo in the halo plane.
+     *
+     * @param x          the x coordinate of the upper left cell.
+     * @param y          the y coordinate of the upper left cell.
+     * @param horizontal true if the ship goes along the row.
+     * @param planes     the planes.
+     * @param shipPlane  number of the ship plane.
+     * @param haloPlane  number of the halo plane.
+     */
+    void addShip(int x, int y, boolean horizontal, BitPlanes planes, int shipPlane, int haloPlane) {
+        if (footStart != null) {
+            int p = positionOf(x, y, horizontal);
+            for (int i = footStart[p]; i < footStart[p + 1]; i++) {
+                planes.or(shipPlane, footWords[i], footMasks[i]);
+            }
+            for (int i = zoneStart[p]; i < zoneStart[p + 1]; i++) {
+                planes.or(haloPlane, zoneWords[i], zoneMasks[i] & ~planes.get(shipPlane, zoneWords[i]));
+            }
+            return;
+        }
+        int lastX = horizontal ? x : x + length - 1;
+        int lastY = horizontal ? y + length - 1 : y;
+        for (int row = x; row <= lastX; row++) {
+            long from = (long) row * sizeY + y;
+            long to = (long) row * sizeY + lastY + 1;
+            for (long w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+                planes.or(shipPlane, w, wordMask(from, to, w));
+            }
+        }
+        int fromY = Math.max(y - 1, 0);
+        int toY = Math.min(lastY + 1, sizeY - 1);
+        for (int row = Math.max(x - 1, 0); row <= Math.min(lastX + 1, sizeX - 1); row++) {
+            long from = (long) row * sizeY + fromY;
+            long to = (long) row * sizeY + toY + 1;
+            for (long w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+                planes.or(haloPlane, w, wordMask(from, to, w) & ~planes.get(shipPlane, w));
+            }
+        }
+    }
+
+    /**
+     * Getting the bits from (inclusive) to (exclusive) which lie in the word.
+     */
+    private static long wordMask(long from, long to, long w) {
+        long mask = -1L;
+        if (w == from >>> 6) {
+            mask &= -1L << from;
+        }
+        if (w == (to - 1) >>> 6) {
+            mask &= -1L >>> -to;
+        }
+        return mask;
+    }
+
+    private boolean isInside(int x, int y, boolean horizontal) {
+        return x >= 0 && y >= 0 && (horizontal ? x < sizeX && y + length <= sizeY : x + length <= sizeX && y < sizeY);
+    }
+
+    private int positionOf(int x, int y, boolean horizontal) {
+        return (x * sizeY + y) * 2 + (horizontal ? 0 : 1);
+    }
+
+    private int getPairs() {
+        return footWords.length + zoneWords.length;
+    }
+
+    private int collect(int position, boolean zone, int[] words, long[] masks, int at) {
+        int cell = position / 2;
+        boolean horizontal = position % 2 == 0;
+        if (!isInside(cell / sizeY, cell % sizeY, horizontal)) {
+            return 0;
+        }
+        return collect(cell / sizeY, cell % sizeY, horizontal, zone, words, masks, at);
+    }
+
+    /**
+     * Writing the pairs of the footprint or the zone row by row when the template is built.
+     * Neighbour rows of narrow fields often share a word, then their masks are joined into one pair.
+     * If words is null, the pairs are only counted.
+     *
+     * @return amount of pairs.
+     */
+    private int collect(int x, int y, boolean horizontal, boolean zone, int[] words, long[] masks, int at) {
+        int lastX = horizontal ? x : x + length - 1;
+        int lastY = horizontal ? y + length - 1 : y;
+        int fromX = zone ? Math.max(x - 1, 0) : x;
+        int toX = zone ? Math.min(lastX + 1, sizeX - 1) : lastX;
+        int fromY = zone ? Math.max(y - 1, 0) : y;
+        int toY = zone ? Math.min(lastY + 1, sizeY - 1) : lastY;
+        int count = 0;
+        int lastWord = -1;
+        for (int row = fromX; row <= toX; row++) {
+            long from = (long) row * sizeY + fromY;
+            long to = (long) row * sizeY + toY + 1;
+            for (int w = (int) (from >>> 6); w <= (int) ((to - 1) >>> 6); w++) {
+                long mask = wordMask(from, to, w);
+                if (w != lastWord) {
+                    count++;
+                    lastWord = w;
+                    if (words != null) {
+                        words[at + count - 1] = w;
+                        masks[at + count - 1] = mask;
+                    }
+                } else if (words != null) {
+                    masks[at + count - 1] |= mask;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -3,17 +3,17 @@ package battleship.models;
 import battleship.enums.Direction;
 import battleship.enums.ShipType;
 
-import java.util.Random;
-
+/**
+ * A vessel of the fleet.
+ * The ship is a straight line, so only its first cell, orientation and length are kept.
+ * The first cell is always the upper or the left end of the ship.
+ */
 public class Ship {
-    private static final Random rnd;
     private final ShipType type;
     private int headPoints;
-    private Coordinate[] coordinates;
-
-    static {
-        rnd = new Random();
-    }
+    private int x = -1;
+    private int y = -1;
+    private boolean horizontal = true;
 
     /**
      * Default Ship constructor.
@@ -21,7 +21,6 @@ public class Ship {
      */
     public Ship() {
         type = ShipType.Cruiser;
-        coordinates = new Coordinate[]{new Coordinate()};
     }
 
     /**
@@ -36,47 +35,32 @@ public class Ship {
 
     /**
      * Setting ship destination in the battlefield.
-     * Placing of the ship declare impossible if attempts amount of placing exceed 100.
      *
-     * @return true if it is possible to place the ship, false otherwise.
-     */
-    public boolean trySetShipCoordinates(BattleField battleField) {
-        coordinates = new Coordinate[type.getSize()];
-
-        // Максимально допустимое количество попыток задать координаты для корабля
-        // То есть при превышении этого количества, корабли будут расстанавливаться заново
-        // С самого начала
-        int maxIteration = 100;
-        // Первая координата выбирается случайно на территории поля
-        // Но она все должна выбираться корректно
-        do {
-            if (maxIteration == 0) {
-                return false;
-            }
-            coordinates[0] = new Coordinate(rnd.nextInt(battleField.sizeX),
-                    rnd.nextInt(battleField.sizeY));
-            maxIteration--;
-        } while (battleField.matrix[coordinates[0].x][coordinates[0].y] == 9
-                || battleField.matrix[coordinates[0].x][coordinates[0].y] == 8);
-
-        // Направление корабля выбирается случайно;
-        Direction dir = Direction.values()[rnd.nextInt(3)];
-        maxIteration = 100;
-        // Последующие координаты задаются с учетом направления и предыдущих координат
-        for (int i = 1; i < type.getSize(); i++) {
-            coordinates[i] = new Coordinate(coordinates[i - 1].x, coordinates[i - 1].y, dir);
-            if (!checkNextCoordinate(coordinates[i], battleField)) {
-                dir = Direction.values()[rnd.nextInt(3)];
-                coordinates[0] = new Coordinate(rnd.nextInt(battleField.sizeX),
-                        rnd.nextInt(battleField.sizeY));
-                i = 0;
-                maxIteration--;
-            }
-            if (maxIteration == 0) {
-                return false;
-            }
+     * @param x   the x coordinate of the first ship cell.
+     * @param y   the y coordinate of the first ship cell.
+     * @param dir direction of the ship relatively to the first cell.
+     */
+    public void setCoordinates(int x, int y, Direction dir) {
+        int last = type.getSize() - 1;
+        switch (dir) {
+            case right -> setPosition(x, y, true);
+            case left -> setPosition(x, y - last, true);
+            case down -> setPosition(x, y, false);
+            case up -> setPosition(x - last, y, false);
         }
-        return true;
+    }
+
+    /**
+     * Setting ship destination in the battlefield by its upper left cell.
+     *
+     * @param x          the x coordinate of the upper left ship cell.
+     * @param y          the y coordinate of the upper left ship cell.
+     * @param horizontal true if the ship goes along the row, false if it goes along the column.
+     */
+    public void setPosition(int x, int y, boolean horizontal) {
+        this.x = x;
+        this.y = y;
+        this.horizontal = horizontal;
     }
 
     /**
@@ -103,25 +87,103 @@ public class Ship {
         headPoints = type.getSize();
     }
 
-    private boolean checkNextCoordinate(Coordinate c, BattleField battleField) {
-        // Проверка на то что координата находится на территории поля
-        if (c.x >= battleField.sizeX || c.x < 0 || c.y >= battleField.sizeY || c.y < 0) {
-            return false;
-        }
-        // 8 - значение на которое нельзя поставить корабль, тк рядом уже есть корабль
-        // 9 - значение на которм уже стоит корабль
-        if (battleField.matrix[c.x][c.y] == 9 || battleField.matrix[c.x][c.y] == 8) {
-            return false;
-        }
-        return true;
+    /**
+     * Getting the type of the ship.
+     *
+     * @return the ship type.
+     */
+    public ShipType getType() {
+        return type;
+    }
+
+    /**
+     * Getting the amount of not hit cells of the ship.
+     *
+     * @return the head points.
+     */
+    public int getHeadPoints() {
+        return headPoints;
+    }
+
+    /**
+     * Setting the amount of not hit cells of the ship, for example when the game is loaded.
+     *
+     * @param headPoints the head points from 0 to the size of the ship.
+     */
+    public void setHeadPoints(int headPoints) {
+        this.headPoints = headPoints;
+    }
+
+    /**
+     * Getting a size of the ship.
+     *
+     * @return the size of ship type.
+     */
+    public int getSize() {
+        return type.getSize();
+    }
+
+    /**
+     * Getting the x coordinate of the upper left ship cell.
+     *
+     * @return the x coordinate or -1 if the ship is not placed.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Getting the y coordinate of the upper left ship cell.
+     *
+     * @return the y coordinate or -1 if the ship is not placed.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Check if the ship goes along the row.
+     *
+     * @return true if the ship is horizontal, false if it is vertical.
+     */
+    public boolean isHorizontal() {
+        return horizontal;
+    }
+
+    /**
+     * Getting the x coordinate of the ship cell.
+     *
+     * @param i number of the cell from the upper left end.
+     * @return the x coordinate.
+     */
+    public int getCellX(int i) {
+        return horizontal ? x : x + i;
+    }
+
+    /**
+     * Getting the y coordinate of the ship cell.
+     *
+     * @param i number of the cell from the upper left end.
+     * @return the y coordinate.
+     */
+    public int getCellY(int i) {
+        return horizontal ? y + i : y;
     }
 
     /**
      * Getting coordinates of the ship.
+     * A new array is created on every call, so it shouldn't be used on hot paths.
      *
      * @return the Coordinate array of the ship.
      */
     public Coordinate[] getCoordinates() {
+        if (x < 0) {
+            return new Coordinate[]{new Coordinate()};
+        }
+        Coordinate[] coordinates = new Coordinate[type.getSize()];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(getCellX(i), getCellY(i));
+        }
         return coordinates;
     }
 
@@ -134,6 +196,15 @@ public class Ship {
         return headPoints == 0;
     }
 
+    /**
+     * Check if the vessel was hit but is still afloat.
+     *
+     * @return true if vessel is damaged, false otherwise.
+     */
+    public boolean isDamaged() {
+        return headPoints > 0 && headPoints < type.getSize();
+    }
+
     /**
      * @return name of type of ship.
      */
@@ -0,0 +1,67 @@
+package battleship.server;
+
+import battleship.enums.ShotResult;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary commands for machine clients.
+ * After the text greeting the client sends the byte MAGIC, then the session reads fixed frames
+ * of FRAME_SIZE bytes: the opcode and two big-endian ints x and y counted from 1, as in text commands.
+ * Every frame except EXIT is answered by one byte: the ordinal of ShotResult or BAD_FRAME.
+ * After the win or EXIT the server closes the connection.
+ */
+public final class BinaryProtocol {
+    /**
+     * The first byte of a binary session, it can't start a text command.
+     */
+    public static final byte MAGIC = (byte) 0xB5;
+    /**
+     * Size of every command frame.
+     */
+    public static final int FRAME_SIZE = 9;
+    /**
+     * Usual attack of the cell.
+     */
+    public static final byte ATTACK = 1;
+    /**
+     * Torpedo attack of the cell.
+     */
+    public static final byte TORPEDO = 2;
+    /**
+     * Leaving the game, the coordinates are ignored.
+     */
+    public static final byte EXIT = 3;
+    /**
+     * The answer to a frame with an unknown opcode.
+     */
+    public static final byte BAD_FRAME = 0x7F;
+
+    private static final ShotResult[] shotResults = ShotResult.values();
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Writing the command frame into the buffer.
+     *
+     * @param out    where to write, at least FRAME_SIZE bytes must remain.
+     * @param opcode the command.
+     * @param x      the x coordinate counted from 1.
+     * @param y      the y coordinate counted from 1.
+     */
+    public static void putFrame(ByteBuffer out, byte opcode, int x, int y) {
+        out.put(opcode).putInt(x).putInt(y);
+    }
+
+    /**
+     * Getting the result of the shot from the answer byte.
+     *
+     * @param answer the answer of the server.
+     * @return the result or null if the frame was rejected.
+     */
+    public static ShotResult getResult(byte answer) {
+        int ordinal = answer & 0xff;
+        return ordinal < shotResults.length ? shotResults[ordinal] : null;
+    }
+}
@@ -0,0 +1,279 @@
+package battleship.server;
+
+import battleship.engine.GameEngine;
+import battleship.enums.PlacementResult;
+import battleship.metrics.MetricsRegistry;
+import battleship.models.BattleField;
+import battleship.models.BoardPool;
+import battleship.models.GameConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server hosting many single-player games over TCP.
+ * Every connection gets its own game and talks with the same commands as the console game, line by line.
+ * Connections are spread over a few event loops, every loop serves its connections
+ * by one selector in one thread, so thousands of sessions don't need thousands of threads.
+ */
+public class GameServer implements AutoCloseable {
+    private final GameConfig config;
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    // Поля всех игр лежат вне кучи, если они не слишком большие для слота
+    private final BoardPool boardPool;
+    private volatile boolean isRunning = true;
+    private int nextLoop;
+
+    /**
+     * GameServer constructor, the server starts listening at once.
+     *
+     * @param config  parameters of every game.
+     * @param address address to listen, port 0 means any free port.
+     * @param threads amount of event loops.
+     * @param seed    seed of the games, every game gets its own seed from it.
+     * @throws IOException throws if the address can't be bound.
+     */
+    public GameServer(GameConfig config, InetSocketAddress address, int threads, long seed) throws IOException {
+        this.config = config;
+        boardPool = (long) config.sizeX * config.sizeY <= BattleField.MAX_DENSE_CELLS
+                ? new BoardPool(config.sizeX, config.sizeY)
+                : null;
+        SplittableRandom rnd = new SplittableRandom(seed);
+        loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop(i, rnd.split());
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1 << 12);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Getting the port the server listens.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Getting the pool of battlefields of the games.
+     *
+     * @return the pool or null if the fields are too big for it.
+     */
+    public BoardPool getBoardPool() {
+        return boardPool;
+    }
+
+    /**
+     * Getting the amount of connected clients.
+     *
+     * @return the amount of sessions.
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Stopping the server and closing all sessions.
+     *
+     * @throws IOException throws if the listening socket can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        isRunning = false;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        serverChannel.close();
+    }
+
+    /**
+     * Accepting all waiting connections and passing them to the loops in turn.
+     * It is called only by the first loop.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            EventLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.pending.add(channel);
+            if (loop != loops[0]) {
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * One selector with its thread.
+     */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        // Новые соединения, переданные из принимающего цикла
+        private final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final SplittableRandom rnd;
+
+        EventLoop(int number, SplittableRandom rnd) throws IOException {
+            this.rnd = rnd;
+            selector = Selector.open();
+            thread = new Thread(this, "battleship-loop-" + number);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (isRunning) {
+                    selector.select();
+                    registerPending();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                }
+            } catch (IOException ex) {
+                System.out.println("Event loop stopped: " + ex.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    // Отмененные ключи остаются в наборе до следующего выбора, их сессии уже закрыты
+                    if (key.isValid() && key.attachment() instanceof Session) {
+                        closeSession((Session) key.attachment());
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // Сервер уже останавливается
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                registerPending();
+                return;
+            }
+            Session session = (Session) key.attachment();
+            boolean isOpen;
+            try {
+                isOpen = key.isReadable() ? session.onReadable() : session.onWritable();
+            } catch (IOException | RuntimeException ex) {
+                // Ошибка одной сессии не должна останавливать остальные
+                isOpen = false;
+            }
+            if (!isOpen) {
+                closeSession(session);
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                SelectionKey key = null;
+                GameEngine engine = null;
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    key = channel.register(selector, 0);
+                    engine = boardPool != null
+                            ? new GameEngine(config, rnd.nextLong(), boardPool)
+                            : new GameEngine(config, rnd.nextLong());
+                    if (engine.placeFleet() != PlacementResult.placed) {
+                        engine.release();
+                        channel.write(ByteBuffer.wrap(("Unable to set coordinates" + System.lineSeparator())
+                                .getBytes(StandardCharsets.UTF_8)));
+                        key.cancel();
+                        channel.close();
+                        continue;
+                    }
+                    Session session = new Session(channel, key, engine);
+                    key.attach(session);
+                    session.start();
+                    sessionCount.incrementAndGet();
+                } catch (IOException ex) {
+                    // Слот пула и ключ не должны пережить несостоявшуюся сессию, повторное освобождение ничего не делает
+                    if (engine != null) {
+                        engine.release();
+                    }
+                    if (key != null) {
+                        key.cancel();
+                    }
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // Клиент уже отключился
+                    }
+                }
+            }
+        }
+
+        private void closeSession(Session session) {
+            session.close();
+            sessionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Running the server from the command line until the process is stopped.
+     * Parameters are the port, then all 9 game parameters and optionally the amount of threads.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            int port = Integer.parseInt(args[0]);
+            GameConfig config = GameConfig.tryParseCommandLineParams(Arrays.copyOfRange(args, 1, 10));
+            int threads = args.length > 10 ? Integer.parseInt(args[10]) : Runtime.getRuntime().availableProcessors();
+            GameServer server = new GameServer(config, new InetSocketAddress(port), threads, System.nanoTime());
+            MetricsRegistry.getDefault().registerMBean();
+            System.out.println("Listening on port " + server.getPort() + " with " + threads + " threads");
+            while (true) {
+                Thread.sleep(10_000);
+                System.out.println("sessions - " + server.getSessionCount());
+                if (server.getBoardPool() != null) {
+                    BoardPool pool = server.getBoardPool();
+                    System.out.println("boards - " + pool.getUsedSlots() + " of " + pool.getSlots()
+                            + " slots, " + pool.getAllocatedBytes() / 1024 + " KB off-heap");
+                }
+                System.out.print(MetricsRegistry.getDefault().getDump());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect server parameters" : ex.getMessage());
+            System.out.println("Usage: --server port sizeX sizeY carriers battleships cruisers "
+                    + "destroyers submarines torpedoes recovery [threads]");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package battleship.server;
+
+import battleship.engine.GameEngine;
+import battleship.enums.ShotResult;
+import battleship.metrics.GameMetrics;
+import battleship.models.Game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One client of the server with its own game.
+ * Commands are read line by line, the output of every command is followed by the prompt.
+ * While the output isn't sent, the next commands aren't read, so a slow client can't
+ * make the server keep an unlimited output for it.
+ * A session whose first byte is BinaryProtocol.MAGIC reads binary frames instead of lines.
+ */
+class Session {
+    static final String PROMPT = "Enter command: ";
+    // Длиннее команд не бывает, остаток такой строки отбрасывается
+    private static final int MAX_LINE = 256;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Game game;
+    private final StringBuilder output = new StringBuilder(1 << 10);
+    private final StringBuilder line = new StringBuilder(32);
+    private final ByteBuffer in = ByteBuffer.allocate(1 << 9);
+    private final ByteBuffer out = ByteBuffer.allocate(1 << 12);
+    // Сколько символов output уже перенесено в буфер out
+    private int sent;
+    private boolean isLineTooLong;
+    // Режим выбирается по первому байту от клиента
+    private boolean isModeChosen;
+    private boolean isBinary;
+    private boolean isBinaryFinished;
+    private final byte[] frame = new byte[BinaryProtocol.FRAME_SIZE];
+    private int frameLength;
+
+    Session(SocketChannel channel, SelectionKey key, GameEngine engine) {
+        this.channel = channel;
+        this.key = key;
+        this.game = new Game(engine, output);
+        out.flip();
+    }
+
+    /**
+     * Writing the greeting and the first prompt.
+     */
+    void start() throws IOException {
+        game.printBeginningText();
+        output.append("type 'help' if you unfamiliar").append(System.lineSeparator()).append(PROMPT);
+        send();
+    }
+
+    /**
+     * Reading available bytes and executing all complete commands.
+     *
+     * @return false if the session is closed.
+     */
+    boolean onReadable() throws IOException {
+        in.clear();
+        int read = channel.read(in);
+        if (read < 0) {
+            return false;
+        }
+        in.flip();
+        while (in.hasRemaining() && !isFinished()) {
+            byte b = in.get();
+            if (!isModeChosen) {
+                isModeChosen = true;
+                isBinary = b == BinaryProtocol.MAGIC;
+                if (isBinary) {
+                    continue;
+                }
+            }
+            if (isBinary) {
+                frame[frameLength++] = b;
+                if (frameLength == frame.length) {
+                    executeFrame();
+                    frameLength = 0;
+                }
+                continue;
+            }
+            char c = (char) (b & 0xff);
+            if (c == '\n') {
+                execute();
+            } else if (c != '\r') {
+                if (line.length() < MAX_LINE) {
+                    line.append(c);
+                } else {
+                    isLineTooLong = true;
+                }
+            }
+        }
+        return send();
+    }
+
+    /**
+     * Sending the rest of the output.
+     *
+     * @return false if the session is closed.
+     */
+    boolean onWritable() throws IOException {
+        return send();
+    }
+
+    /**
+     * Closing the connection and giving the battlefield of the game back to the pool.
+     */
+    void close() {
+        game.getEngine().release();
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Клиент уже отключился
+        }
+    }
+
+    private void execute() {
+        if (isLineTooLong) {
+            output.append("Incorrect command").append(System.lineSeparator());
+        } else {
+            game.executeCommand(line);
+        }
+        line.setLength(0);
+        isLineTooLong = false;
+        if (!game.isFinished()) {
+            output.append(PROMPT);
+        }
+    }
+
+    /**
+     * Executing the binary frame, the answer is one char of the output, which is sent as one byte.
+     */
+    private void executeFrame() {
+        int x = getInt(1);
+        int y = getInt(5);
+        GameEngine engine = game.getEngine();
+        switch (frame[0]) {
+            case BinaryProtocol.ATTACK, BinaryProtocol.TORPEDO -> {
+                long start = System.nanoTime();
+                ShotResult result = frame[0] == BinaryProtocol.ATTACK
+                        ? engine.fire(x - 1, y - 1)
+                        : engine.torpedo(x - 1, y - 1);
+                GameMetrics.attackTime.recordSince(start);
+                output.append((char) result.ordinal());
+                isBinaryFinished = result == ShotResult.win;
+            }
+            case BinaryProtocol.EXIT -> isBinaryFinished = true;
+            default -> output.append((char) BinaryProtocol.BAD_FRAME);
+        }
+    }
+
+    private int getInt(int from) {
+        return (frame[from] & 0xff) << 24 | (frame[from + 1] & 0xff) << 16
+                | (frame[from + 2] & 0xff) << 8 | frame[from + 3] & 0xff;
+    }
+
+    private boolean isFinished() {
+        return game.isFinished() || isBinaryFinished;
+    }
+
+    /**
+     * Writing as much of the output as the socket accepts.
+     *
+     * @return false if the session is finished and everything is sent.
+     */
+    private boolean send() throws IOException {
+        while (true) {
+            if (out.hasRemaining()) {
+                channel.write(out);
+                if (out.hasRemaining()) {
+                    // Сокет заполнен, ждем, пока клиент прочитает вывод
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return true;
+                }
+            }
+            if (sent == output.length()) {
+                break;
+            }
+            fill();
+        }
+        output.setLength(0);
+        sent = 0;
+        if (isFinished()) {
+            return false;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        return true;
+    }
+
+    /**
+     * Encoding the next part of the output into the buffer in UTF-8.
+     */
+    private void fill() {
+        out.clear();
+        while (sent < output.length() && out.remaining() >= 3) {
+            char c = output.charAt(sent++);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+            } else {
+                out.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+            }
+        }
+        out.flip();
+    }
+}
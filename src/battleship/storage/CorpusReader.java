@@ -0,0 +1,153 @@
+package battleship.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reading games from a corpus file written by CorpusWriter.
+ * <p>
+ * The file is mapped into memory by segments of 1 GB, every next segment starts 1 GB further.
+ * Segments overlap by the length of the longest record, so every record lies inside the segment
+ * where it begins. Records are read in place by CorpusRecord flyweights,
+ * no Game, Fleet or Ship objects are created until a record is turned into a game.
+ */
+public class CorpusReader implements Iterable<CorpusRecord> {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int INDEX_SEGMENT_SHIFT = 27;
+
+    private final long count;
+    private final MappedByteBuffer[] segments;
+    // Индекс смещений записей, по 2^27 смещений в сегменте
+    private final MappedByteBuffer[] indexSegments;
+
+    /**
+     * CorpusReader constructor, the file is mapped at once.
+     *
+     * @param path the corpus file.
+     * @throws Exception throws if the file can't be read or it is not a complete corpus.
+     */
+    public CorpusReader(Path path) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(CorpusWriter.FILE_HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new Exception("Incorrect corpus file");
+                }
+            }
+            if (header.getInt(0) != CorpusWriter.MAGIC) {
+                throw new Exception("Incorrect corpus file");
+            }
+            if (header.getShort(4) != CorpusWriter.VERSION) {
+                throw new Exception("Unsupported corpus version");
+            }
+            count = header.getLong(CorpusWriter.COUNT_OFFSET);
+            long indexOffset = header.getLong(CorpusWriter.INDEX_OFFSET);
+            int maxRecordBytes = header.getInt(CorpusWriter.MAX_RECORD_OFFSET);
+            if (indexOffset == 0) {
+                throw new Exception("Corpus file was not closed");
+            }
+            if (count < 0 || indexOffset + 8 * count > channel.size() || maxRecordBytes < 0) {
+                throw new Exception("Incorrect corpus file");
+            }
+
+            int segmentCount = (int) ((indexOffset - 1 >> SEGMENT_SHIFT) + 1);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long from = (long) i << SEGMENT_SHIFT;
+                long size = Math.min((1L << SEGMENT_SHIFT) + maxRecordBytes, indexOffset - from);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+            }
+
+            int indexSegmentCount = (int) ((count - 1 >> INDEX_SEGMENT_SHIFT) + 1);
+            indexSegments = new MappedByteBuffer[indexSegmentCount];
+            for (int i = 0; i < indexSegmentCount; i++) {
+                long first = (long) i << INDEX_SEGMENT_SHIFT;
+                long size = 8 * Math.min(1L << INDEX_SEGMENT_SHIFT, count - first);
+                indexSegments[i] = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + 8 * first, size);
+            }
+        }
+    }
+
+    /**
+     * Getting the amount of games in the corpus.
+     *
+     * @return the amount of games.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Creating a flyweight pointing at the first game.
+     * The flyweight is moved between games by moveTo, so one object is enough to read the whole corpus.
+     *
+     * @return the flyweight.
+     * @throws Exception throws if the corpus is empty.
+     */
+    public CorpusRecord record() throws Exception {
+        CorpusRecord record = new CorpusRecord(this);
+        record.moveTo(0);
+        return record;
+    }
+
+    /**
+     * Iterating over all games in the order they were written.
+     * The iterator returns the same flyweight every time, moved to the next game,
+     * so the returned record mustn't be kept after the next call.
+     * A damaged record stops the iteration with IllegalStateException.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<CorpusRecord> iterator() {
+        CorpusRecord record = new CorpusRecord(this);
+        return new Iterator<>() {
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public CorpusRecord next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                if (!record.point(next++)) {
+                    throw new IllegalStateException("Incorrect corpus record");
+                }
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Getting the offset of the record in the file.
+     */
+    long offsetOf(long index) {
+        return indexSegments[(int) (index >>> INDEX_SEGMENT_SHIFT)]
+                .getLong((int) (index & ((1L << INDEX_SEGMENT_SHIFT) - 1)) * 8);
+    }
+
+    /**
+     * Getting the segment where the record at the offset lies, null if the offset is outside the records.
+     */
+    ByteBuffer segmentOf(long offset) {
+        long segment = offset >>> SEGMENT_SHIFT;
+        return offset < 0 || segment >= segments.length ? null : segments[(int) segment];
+    }
+
+    /**
+     * Getting the position of the record at the offset inside its segment.
+     */
+    static int positionOf(long offset) {
+        return (int) (offset & ((1L << SEGMENT_SHIFT) - 1));
+    }
+}
@@ -0,0 +1,309 @@
+package battleship.storage;
+
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.enums.ShipType;
+import battleship.enums.ShotResult;
+import battleship.models.BattleField;
+import battleship.models.FleetConfig;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Flyweight over one game record of the corpus.
+ * All values are read directly from the mapped file, nothing is copied when the flyweight is moved.
+ * The lengths and the ship types of the record are checked when the flyweight is moved to it,
+ * numbers of ships and moves out of the record throw IndexOutOfBoundsException.
+ */
+public class CorpusRecord {
+    private static final ShipType[] types = ShipType.values();
+
+    private final CorpusReader reader;
+    private ByteBuffer segment;
+    private int base;
+    private long index;
+
+    CorpusRecord(CorpusReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Moving the flyweight to the game.
+     *
+     * @param index number of the game in the corpus from 0.
+     * @throws Exception throws if there is no such game or its record is damaged.
+     */
+    public void moveTo(long index) throws Exception {
+        if (index < 0 || index >= reader.size()) {
+            throw new Exception("Incorrect game number");
+        }
+        if (!point(index)) {
+            throw new Exception("Incorrect corpus record");
+        }
+    }
+
+    /**
+     * Moving the flyweight to the game if its record is correct.
+     *
+     * @param index number of the game in the corpus from 0.
+     * @return true if the flyweight was moved, false if the record is damaged and the flyweight stays.
+     */
+    boolean point(long index) {
+        long offset = reader.offsetOf(index);
+        ByteBuffer segment = reader.segmentOf(offset);
+        int base = CorpusReader.positionOf(offset);
+        if (segment == null || base > segment.limit() - CorpusWriter.SHIPS) {
+            return false;
+        }
+        int shipCount = segment.getInt(base + CorpusWriter.SHIP_COUNT);
+        int moveCount = segment.getInt(base + CorpusWriter.MOVE_COUNT);
+        if (shipCount < 0 || moveCount < 0 || shipCount > CorpusWriter.MAX_RECORD_BYTES / CorpusWriter.SHIP_BYTES) {
+            return false;
+        }
+        long recordBytes = CorpusWriter.movesOffset(shipCount) + 8L * moveCount;
+        if (segment.getInt(base + CorpusWriter.RECORD_BYTES) != recordBytes
+                || recordBytes > segment.limit() - base) {
+            return false;
+        }
+        for (int i = 0; i < shipCount; i++) {
+            byte type = segment.get(base + CorpusWriter.SHIPS + CorpusWriter.SHIP_BYTES * i + 8);
+            if (type < 0 || type >= types.length) {
+                return false;
+            }
+        }
+        this.index = index;
+        this.segment = segment;
+        this.base = base;
+        return true;
+    }
+
+    /**
+     * Getting the number of the game in the corpus.
+     *
+     * @return the number from 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Getting the amount of rows of the field.
+     *
+     * @return the amount of rows.
+     */
+    public int getSizeX() {
+        return segment.getInt(base + CorpusWriter.SIZE_X);
+    }
+
+    /**
+     * Getting the amount of columns of the field.
+     *
+     * @return the amount of columns.
+     */
+    public int getSizeY() {
+        return segment.getInt(base + CorpusWriter.SIZE_Y);
+    }
+
+    /**
+     * Getting an amount of ships of definite ship type.
+     *
+     * @param type the ship type.
+     * @return the amount.
+     */
+    public int getAmount(ShipType type) {
+        return segment.getInt(base + CorpusWriter.AMOUNTS + 4 * type.ordinal());
+    }
+
+    /**
+     * Getting an amount of torpedoes at the beginning of the game.
+     *
+     * @return the amount of torpedoes.
+     */
+    public int getTorpedoesAmount() {
+        return segment.getInt(base + CorpusWriter.TORPEDOES);
+    }
+
+    /**
+     * Check if damaged ships were recovered after a miss.
+     *
+     * @return true if recovery mode was enabled.
+     */
+    public boolean isRecoveryModEnabled() {
+        return (segment.getInt(base + CorpusWriter.FLAGS) & CorpusWriter.FLAG_RECOVERY) != 0;
+    }
+
+    /**
+     * Check if every ship was sunk in the game.
+     *
+     * @return true if the game was won, false if it was stopped.
+     */
+    public boolean isWon() {
+        return (segment.getInt(base + CorpusWriter.FLAGS) & CorpusWriter.FLAG_WON) != 0;
+    }
+
+    /**
+     * Getting the seed of the game.
+     *
+     * @return the seed or 0 if the game was created with a ready random generator.
+     */
+    public long getSeed() {
+        return segment.getLong(base + CorpusWriter.SEED);
+    }
+
+    /**
+     * Getting an amount of attacks made in the game.
+     *
+     * @return the amount of attacks.
+     */
+    public int getAttackCount() {
+        return segment.getInt(base + CorpusWriter.ATTACK_COUNT);
+    }
+
+    /**
+     * Getting an amount of ships in the fleet layout.
+     *
+     * @return the amount of ships.
+     */
+    public int getShipCount() {
+        return segment.getInt(base + CorpusWriter.SHIP_COUNT);
+    }
+
+    /**
+     * Getting the x coordinate of the upper left cell of the ship.
+     *
+     * @param i number of the ship.
+     * @return the x coordinate.
+     */
+    public int getShipX(int i) {
+        Objects.checkIndex(i, getShipCount());
+        return segment.getInt(base + CorpusWriter.SHIPS + CorpusWriter.SHIP_BYTES * i);
+    }
+
+    /**
+     * Getting the y coordinate of the upper left cell of the ship.
+     *
+     * @param i number of the ship.
+     * @return the y coordinate.
+     */
+    public int getShipY(int i) {
+        Objects.checkIndex(i, getShipCount());
+        return segment.getInt(base + CorpusWriter.SHIPS + CorpusWriter.SHIP_BYTES * i + 4);
+    }
+
+    /**
+     * Getting the type of the ship.
+     *
+     * @param i number of the ship.
+     * @return the ship type.
+     */
+    public ShipType getShipType(int i) {
+        Objects.checkIndex(i, getShipCount());
+        return types[segment.get(base + CorpusWriter.SHIPS + CorpusWriter.SHIP_BYTES * i + 8)];
+    }
+
+    /**
+     * Check if the ship goes along the row.
+     *
+     * @param i number of the ship.
+     * @return true if the ship is horizontal.
+     */
+    public boolean isShipHorizontal(int i) {
+        Objects.checkIndex(i, getShipCount());
+        return segment.get(base + CorpusWriter.SHIPS + CorpusWriter.SHIP_BYTES * i + 9) != 0;
+    }
+
+    /**
+     * Getting an amount of recorded moves.
+     *
+     * @return the amount of moves.
+     */
+    public int getMoveCount() {
+        return segment.getInt(base + CorpusWriter.MOVE_COUNT);
+    }
+
+    /**
+     * Getting the move packed as MoveLog keeps it.
+     *
+     * @param i number of the move from 0.
+     * @return the packed move.
+     */
+    public long getMove(int i) {
+        Objects.checkIndex(i, getMoveCount());
+        return segment.getLong(base + CorpusWriter.movesOffset(getShipCount()) + 8 * i);
+    }
+
+    /**
+     * Getting the attacked cell of the move.
+     *
+     * @param i number of the move from 0.
+     * @return the cell index x * sizeY + y.
+     */
+    public long getMoveCell(int i) {
+        return MoveLog.cellOf(getMove(i));
+    }
+
+    /**
+     * Check if the move was a torpedo attack.
+     *
+     * @param i number of the move from 0.
+     * @return true if the torpedo was used.
+     */
+    public boolean isMoveTorpedo(int i) {
+        return MoveLog.isTorpedo(getMove(i));
+    }
+
+    /**
+     * Getting the result of the move.
+     *
+     * @param i number of the move from 0.
+     * @return the result.
+     */
+    public ShotResult getMoveResult(int i) {
+        return MoveLog.resultOf(getMove(i));
+    }
+
+    /**
+     * Turning the record into a game with the recorded fleet layout.
+     *
+     * @param moves amount of recorded moves to play, from 0 to getMoveCount.
+     * @return the game after the moves.
+     * @throws Exception throws if the record is damaged or the moves give other results than recorded.
+     */
+    public GameEngine toGameEngine(int moves) throws Exception {
+        if (moves < 0 || moves > getMoveCount()) {
+            throw new Exception("Incorrect move number");
+        }
+        int[] amounts = new int[types.length];
+        for (ShipType type : types) {
+            amounts[type.ordinal()] = getAmount(type);
+        }
+        GameConfig config = new GameConfig(getSizeX(), getSizeY(),
+                new FleetConfig(amounts, getTorpedoesAmount()), isRecoveryModEnabled());
+        GameEngine engine = new GameEngine(config, getSeed());
+        BattleField battleField = engine.getBattleField();
+        Ship[] ships = new Ship[getShipCount()];
+        for (int i = 0; i < ships.length; i++) {
+            ships[i] = new Ship(getShipType(i));
+            ships[i].setPosition(getShipX(i), getShipY(i), isShipHorizontal(i));
+            int last = ships[i].getSize() - 1;
+            if (getShipX(i) < 0 || getShipY(i) < 0
+                    || ships[i].getCellX(last) >= config.sizeX || ships[i].getCellY(last) >= config.sizeY) {
+                throw new Exception("Incorrect corpus record");
+            }
+            battleField.changeMatrixAfterAddingShip(ships[i]);
+        }
+        engine.getFleet().restore(ships, config.fleetConfig.getTorpedoesAmount());
+        long cells = (long) config.sizeX * config.sizeY;
+        for (int i = 0; i < moves; i++) {
+            long move = getMove(i);
+            if (!MoveLog.isValid(move, cells)) {
+                throw new Exception("Incorrect corpus record");
+            }
+            GameReplay.play(engine, move, i);
+        }
+        return engine;
+    }
+}
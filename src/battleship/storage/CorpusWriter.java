@@ -0,0 +1,246 @@
+package battleship.storage;
+
+import battleship.engine.BatchRunner;
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.engine.ProbabilityStrategy;
+import battleship.engine.ShootingStrategy;
+import battleship.enums.ShipType;
+import battleship.models.FleetConfig;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writing finished games into a corpus file, which is read by CorpusReader.
+ * <p>
+ * The file starts with the header: magic number, version, amount of games,
+ * the offset of the index and the length of the longest game record.
+ * Then game records go one after another, every record starts at a multiple of 8 bytes:
+ * the fixed part with the game parameters, seed, flags, amount of attacks, ships and moves,
+ * then the layout of the fleet and the moves packed as MoveLog keeps them.
+ * The index of record offsets is written after the last record when the writer is closed,
+ * a corpus without the index can't be read.
+ */
+public class CorpusWriter implements AutoCloseable {
+    static final int MAGIC = 0x42534350;
+    static final short VERSION = 1;
+    static final int FILE_HEADER_BYTES = 32;
+    // Смещения полей в заголовке файла
+    static final int COUNT_OFFSET = 8;
+    static final int INDEX_OFFSET = 16;
+    static final int MAX_RECORD_OFFSET = 24;
+
+    // Смещения полей в записи партии
+    static final int RECORD_BYTES = 0;
+    static final int SIZE_X = 4;
+    static final int SIZE_Y = 8;
+    static final int AMOUNTS = 12;
+    static final int TORPEDOES = AMOUNTS + 4 * ShipType.values().length;
+    static final int FLAGS = TORPEDOES + 4;
+    static final int SEED = 40;
+    static final int ATTACK_COUNT = 48;
+    static final int SHIP_COUNT = 52;
+    static final int MOVE_COUNT = 56;
+    static final int SHIPS = 64;
+    static final int SHIP_BYTES = 12;
+    static final int FLAG_RECOVERY = 1;
+    static final int FLAG_WON = 2;
+    // Запись не может быть больше, чем перекрытие отображаемых сегментов
+    static final int MAX_RECORD_BYTES = 1 << 28;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 12);
+    private long[] offsets = new long[1024];
+    private long count;
+    private long position = FILE_HEADER_BYTES;
+    private int maxRecordBytes;
+
+    /**
+     * CorpusWriter constructor, the file is overwritten.
+     *
+     * @param path the corpus file.
+     * @throws IOException throws if the file can't be created.
+     */
+    public CorpusWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        writeHeader(0);
+    }
+
+    /**
+     * Writing a corpus of games from the command line and reading it back.
+     * Parameters are the file, the amount of games, then all 9 game parameters and optionally the seed.
+     * Games are played by ProbabilityStrategy in the same way as in the batch mode.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            Path path = Path.of(args[0]);
+            int games = Integer.parseInt(args[1]);
+            GameConfig config = GameConfig.tryParseCommandLineParams(Arrays.copyOfRange(args, 2, 11));
+            long seed = args.length > 11 ? Long.parseLong(args[11]) : System.nanoTime();
+            System.out.println("seed - " + seed);
+            BatchRunner runner = new BatchRunner(config, seed);
+            ShootingStrategy strategy = new ProbabilityStrategy();
+            MoveLog moveLog = new MoveLog();
+            long start = System.nanoTime();
+            try (CorpusWriter writer = new CorpusWriter(path)) {
+                for (int i = 0; i < games; i++) {
+                    writer.append(runner.playRecorded(strategy, i, moveLog));
+                }
+            }
+            System.out.printf("written %d games in %.1f ms%n", games, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            CorpusReader reader = new CorpusReader(path);
+            long won = 0;
+            long attacks = 0;
+            for (CorpusRecord record : reader) {
+                if (record.isWon()) {
+                    won++;
+                    attacks += record.getAttackCount();
+                }
+            }
+            System.out.printf("read %d games in %.1f ms, won %d, mean attacks %.2f%n", reader.size(),
+                    (System.nanoTime() - start) / 1e6, won, won == 0 ? 0.0 : (double) attacks / won);
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect corpus parameters" : ex.getMessage());
+            System.out.println("Usage: --corpus file games sizeX sizeY carriers battleships cruisers "
+                    + "destroyers submarines torpedoes recovery [seed]");
+        }
+    }
+
+    /**
+     * Getting the offset of the first move in the record.
+     *
+     * @param shipCount amount of ships in the record.
+     * @return the offset, it is a multiple of 8.
+     */
+    static int movesOffset(int shipCount) {
+        return (SHIPS + SHIP_BYTES * shipCount + 7) & ~7;
+    }
+
+    /**
+     * Appending the finished or stopped game.
+     *
+     * @param engine the game with the placed fleet and the log of moves.
+     * @throws Exception throws if the game has no log of moves, its fleet isn't placed
+     *                   or the file can't be written.
+     */
+    public void append(GameEngine engine) throws Exception {
+        MoveLog moves = engine.getMoveLog();
+        if (moves == null || !engine.getFleet().isPlaced()) {
+            throw new Exception("Only placed games with recorded moves can be added to the corpus");
+        }
+        Ship[] ships = engine.getFleet().getShips();
+        long recordBytes = movesOffset(ships.length) + 8L * moves.size();
+        if (recordBytes > MAX_RECORD_BYTES) {
+            throw new Exception("The game is too long for the corpus");
+        }
+        ByteBuffer buf = buffer = SnapshotCodec.prepare(buffer, (int) recordBytes);
+        GameConfig config = engine.getConfig();
+        FleetConfig fleetConfig = config.fleetConfig;
+        buf.putInt(RECORD_BYTES, (int) recordBytes)
+                .putInt(SIZE_X, config.sizeX)
+                .putInt(SIZE_Y, config.sizeY);
+        for (ShipType type : ShipType.values()) {
+            buf.putInt(AMOUNTS + 4 * type.ordinal(), fleetConfig.getAmount(type));
+        }
+        buf.putInt(TORPEDOES, fleetConfig.getTorpedoesAmount())
+                .putInt(FLAGS, (config.isRecoveryModEnabled ? FLAG_RECOVERY : 0) | (engine.isOver() ? FLAG_WON : 0))
+                .putLong(SEED, engine.getSeed())
+                .putInt(ATTACK_COUNT, engine.getAttackCount())
+                .putInt(SHIP_COUNT, ships.length)
+                .putInt(MOVE_COUNT, moves.size())
+                .putInt(MOVE_COUNT + 4, 0);
+        for (int i = 0; i < ships.length; i++) {
+            int at = SHIPS + SHIP_BYTES * i;
+            buf.putInt(at, ships[i].getX())
+                    .putInt(at + 4, ships[i].getY())
+                    .put(at + 8, (byte) ships[i].getType().ordinal())
+                    .put(at + 9, (byte) (ships[i].isHorizontal() ? 1 : 0))
+                    .putShort(at + 10, (short) 0);
+        }
+        int at = movesOffset(ships.length);
+        if (at > SHIPS + SHIP_BYTES * ships.length) {
+            // Выравнивание ходов по 8 байт
+            buf.putInt(at - 4, 0);
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            buf.putLong(at + 8 * i, moves.getPacked(i));
+        }
+        buf.limit((int) recordBytes);
+        write(buf);
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[(int) count++] = position;
+        position += recordBytes;
+        maxRecordBytes = Math.max(maxRecordBytes, (int) recordBytes);
+    }
+
+    /**
+     * Getting the amount of games written so far.
+     *
+     * @return the amount of games.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writing the index and closing the file.
+     *
+     * @throws IOException throws if the file can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            int chunk = 1 << 12;
+            for (int from = 0; from < count; from += chunk) {
+                int to = (int) Math.min(count, from + chunk);
+                ByteBuffer buf = buffer = SnapshotCodec.prepare(buffer, 8 * (to - from));
+                for (int i = from; i < to; i++) {
+                    buf.putLong(offsets[i]);
+                }
+                write(buf.flip());
+                position += 8L * (to - from);
+            }
+            writeHeader(indexOffset);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writing the header at the beginning of the file.
+     *
+     * @param indexOffset offset of the index or 0 while the index isn't written.
+     */
+    private void writeHeader(long indexOffset) throws IOException {
+        ByteBuffer buf = buffer = SnapshotCodec.prepare(buffer, FILE_HEADER_BYTES);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putLong(count).putLong(indexOffset).putInt(maxRecordBytes).putInt(0);
+        buf.flip();
+        long at = 0;
+        while (buf.hasRemaining()) {
+            at += channel.write(buf, at);
+        }
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf, position + buf.position());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package battleship.storage;
+
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.models.GameConfig;
+
+/**
+ * Everything needed to play the game again: its parameters, its seed and its moves.
+ * The seed gives the same placement of the fleet, the moves give the same course of the game.
+ */
+public final class GameRecord {
+    public final GameConfig config;
+    public final long seed;
+    public final MoveLog moves;
+
+    /**
+     * GameRecord constructor.
+     *
+     * @param config parameters of the game.
+     * @param seed   seed of the game.
+     * @param moves  moves of the game.
+     */
+    public GameRecord(GameConfig config, long seed, MoveLog moves) {
+        this.config = config;
+        this.seed = seed;
+        this.moves = moves;
+    }
+
+    /**
+     * Getting the record of the game that logs its moves.
+     *
+     * @param engine the game created with a seed.
+     * @return the record sharing the log with the game.
+     * @throws Exception throws if moves of the game are not logged.
+     */
+    public static GameRecord of(GameEngine engine) throws Exception {
+        if (engine.getMoveLog() == null) {
+            throw new Exception("Moves of the game are not recorded");
+        }
+        return new GameRecord(engine.getConfig(), engine.getSeed(), engine.getMoveLog());
+    }
+}
@@ -0,0 +1,133 @@
+package battleship.storage;
+
+import battleship.engine.GameEngine;
+import battleship.engine.MoveLog;
+import battleship.enums.PlacementResult;
+import battleship.enums.ShotResult;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Playing a recorded game again.
+ * The game is played once when the replay is created and every checkpointInterval moves
+ * its snapshot is kept, so the position after any move is restored from the nearest snapshot
+ * and at most checkpointInterval - 1 moves are played after it.
+ */
+public class GameReplay {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+    private final GameRecord record;
+    private final int checkpointInterval;
+    // checkpoints[k] - снимок после k * checkpointInterval ходов
+    private final byte[][] checkpoints;
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    /**
+     * GameReplay constructor.
+     *
+     * @param record             the recorded game.
+     * @param checkpointInterval amount of moves between snapshots.
+     * @throws Exception throws if the fleet can't be placed or the moves give other results than recorded.
+     */
+    public GameReplay(GameRecord record, int checkpointInterval) throws Exception {
+        if (checkpointInterval <= 0) {
+            throw new Exception("Checkpoint interval must be positive");
+        }
+        this.record = record;
+        this.checkpointInterval = checkpointInterval;
+        int moves = record.moves.size();
+        checkpoints = new byte[moves / checkpointInterval + 1][];
+        GameEngine engine = new GameEngine(record.config, record.seed);
+        if (engine.placeFleet() != PlacementResult.placed) {
+            throw new Exception("Unable to set coordinates");
+        }
+        checkpoints[0] = codec.toByteArray(engine);
+        for (int i = 0; i < moves; i++) {
+            play(engine, record.moves.getPacked(i), i);
+            if ((i + 1) % checkpointInterval == 0) {
+                checkpoints[(i + 1) / checkpointInterval] = codec.toByteArray(engine);
+            }
+        }
+    }
+
+    /**
+     * GameReplay constructor with the default interval between snapshots.
+     *
+     * @param record the recorded game.
+     * @throws Exception throws if the fleet can't be placed or the moves give other results than recorded.
+     */
+    public GameReplay(GameRecord record) throws Exception {
+        this(record, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Getting the amount of recorded moves.
+     *
+     * @return the amount of moves.
+     */
+    public int getMoveCount() {
+        return record.moves.size();
+    }
+
+    /**
+     * Restoring the game after the given amount of moves.
+     * Every call returns a new game, it can be played further independently of the replay.
+     *
+     * @param move amount of moves from 0 to getMoveCount.
+     * @return the game.
+     * @throws Exception throws if the amount of moves is out of the record.
+     */
+    public GameEngine seek(int move) throws Exception {
+        if (move < 0 || move > getMoveCount()) {
+            throw new Exception("Incorrect move number");
+        }
+        int checkpoint = move / checkpointInterval;
+        GameEngine engine = codec.load(ByteBuffer.wrap(checkpoints[checkpoint]));
+        for (int i = checkpoint * checkpointInterval; i < move; i++) {
+            play(engine, record.moves.getPacked(i), i);
+        }
+        return engine;
+    }
+
+    /**
+     * Showing the recorded game from the command line.
+     * Parameters are the record file and optionally the amount of moves, by default all moves.
+     *
+     * @param args command line parameters without the mode flag.
+     */
+    public static void runFromCommandLine(String[] args) {
+        try {
+            GameReplay replay = new GameReplay(new RecordCodec().load(Path.of(args[0])));
+            int move = args.length > 1 ? Integer.parseInt(args[1]) : replay.getMoveCount();
+            GameEngine engine = replay.seek(move);
+            System.out.println("Move " + move + " of " + replay.getMoveCount());
+            System.out.println("Field");
+            System.out.println(engine.getBattleField());
+            System.out.println("Fleet");
+            System.out.println(engine.getBattleField().toHackString());
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage() == null ? "Incorrect replay parameters" : ex.getMessage());
+            System.out.println("Usage: --replay file [move]");
+        }
+    }
+
+    /**
+     * Playing the recorded move.
+     *
+     * @param engine the game.
+     * @param move   the move packed as MoveLog keeps it.
+     * @param number number of the move from 0, it is used in the error message.
+     * @throws Exception throws if the result differs from the recorded one.
+     */
+    static void play(GameEngine engine, long move, int number) throws Exception {
+        long cell = MoveLog.cellOf(move);
+        int sizeY = engine.getBattleField().sizeY;
+        int x = (int) (cell / sizeY);
+        int y = (int) (cell % sizeY);
+        ShotResult result = MoveLog.isTorpedo(move) ? engine.torpedo(x, y) : engine.fire(x, y);
+        if (result != MoveLog.resultOf(move)) {
+            throw new Exception("Move " + (number + 1) + " doesn't match the record");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package battleship.storage;
+
+import battleship.engine.MoveLog;
+import battleship.models.GameConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary format of game records.
+ * <p>
+ * A record starts with the header: magic number, version, flags and the length of the body.
+ * The body contains the game parameters in the same way as a snapshot does,
+ * the seed, the amount of moves and the moves packed as MoveLog keeps them.
+ * <p>
+ * Records can be written one after another into the same channel and read back in the same order.
+ * One codec reuses its buffer for all records, so it must not be shared between threads.
+ */
+public class RecordCodec {
+    // "BSMR"
+    private static final int MAGIC = 0x42534D52;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = SnapshotCodec.HEADER_BYTES;
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 12);
+
+    /**
+     * Writing the record into the file, the file is overwritten.
+     *
+     * @param record the record.
+     * @param path   the file.
+     * @throws IOException throws if the file can't be written.
+     */
+    public void save(GameRecord record, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            save(record, channel);
+        }
+    }
+
+    /**
+     * Reading the record from the file written by save.
+     *
+     * @param path the file.
+     * @return the record.
+     * @throws Exception throws if the file can't be read or it is not a correct record.
+     */
+    public GameRecord load(Path path) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            GameRecord record = load(channel);
+            if (record == null) {
+                throw new Exception("Incorrect record file");
+            }
+            return record;
+        }
+    }
+
+    /**
+     * Writing the record into the channel.
+     *
+     * @param record  the record.
+     * @param channel where to write.
+     * @throws IOException throws if the channel can't be written.
+     */
+    public void save(GameRecord record, WritableByteChannel channel) throws IOException {
+        MoveLog moves = record.moves;
+        int bodyBytes = SnapshotCodec.CONFIG_BYTES + 8 + 4 + 8 * moves.size();
+        ByteBuffer buf = buffer = SnapshotCodec.prepare(buffer, HEADER_BYTES + bodyBytes);
+        int flags = record.config.isRecoveryModEnabled ? SnapshotCodec.FLAG_RECOVERY : 0;
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) flags).putInt(bodyBytes);
+        SnapshotCodec.putConfig(buf, record.config);
+        buf.putLong(record.seed);
+        buf.putInt(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            buf.putLong(moves.getPacked(i));
+        }
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * Reading the next record from the channel.
+     *
+     * @param channel where to read from.
+     * @return the record or null if the channel has ended before the record.
+     * @throws Exception throws if the channel can't be read or the data is not a correct record.
+     */
+    public GameRecord load(ReadableByteChannel channel) throws Exception {
+        ByteBuffer buf = buffer = SnapshotCodec.prepare(buffer, HEADER_BYTES);
+        buf.limit(HEADER_BYTES);
+        if (!SnapshotCodec.readFully(channel, buf)) {
+            return null;
+        }
+        buf.flip();
+        if (buf.getInt() != MAGIC) {
+            throw new Exception("Incorrect record file");
+        }
+        if (buf.getShort() != VERSION) {
+            throw new Exception("Unsupported record version");
+        }
+        int flags = buf.getShort();
+        int bodyBytes = buf.getInt();
+        if (bodyBytes < SnapshotCodec.CONFIG_BYTES + 12 || bodyBytes > SnapshotCodec.MAX_BUFFER_BYTES) {
+            throw new Exception("Incorrect record file");
+        }
+        if (bodyBytes > SnapshotCodec.getRemainingBytes(channel)) {
+            throw new Exception("Unexpected end of record");
+        }
+        buf = buffer = SnapshotCodec.prepare(buffer, bodyBytes);
+        buf.limit(bodyBytes);
+        if (!SnapshotCodec.readFully(channel, buf)) {
+            throw new Exception("Unexpected end of record");
+        }
+        buf.flip();
+        try {
+            GameConfig config = SnapshotCodec.getConfig(buf, (flags & SnapshotCodec.FLAG_RECOVERY) != 0);
+            long seed = buf.getLong();
+            int size = buf.getInt();
+            if (size < 0 || 8L * size != buf.remaining()) {
+                throw new Exception("Incorrect record file");
+            }
+            long cells = (long) config.sizeX * config.sizeY;
+            MoveLog moves = new MoveLog(size);
+            for (int i = 0; i < size; i++) {
+                long move = buf.getLong();
+                if (!MoveLog.isValid(move, cells)) {
+                    throw new Exception("Incorrect record file");
+                }
+                moves.appendPacked(move);
+            }
+            return new GameRecord(config, seed, moves);
+        } catch (RuntimeException ex) {
+            throw new Exception("Incorrect record file");
+        }
+    }
+}
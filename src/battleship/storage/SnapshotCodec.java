@@ -0,0 +1,352 @@
+package battleship.storage;
+
+import battleship.engine.GameEngine;
+import battleship.enums.ShipType;
+import battleship.models.BattleField;
+import battleship.models.Fleet;
+import battleship.models.FleetConfig;
+import battleship.models.GameConfig;
+import battleship.models.Ship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshots of games.
+ * <p>
+ * A snapshot starts with the header: magic number, version, flags and the length of the body.
+ * The body contains the field size, amounts of ships of every type, the amount of torpedoes,
+ * the seed of the game, counters of the game, the bit planes of the battlefield as they are
+ * (only the allocated chunks for huge fields) and the table of ships: type, first cell,
+ * orientation and head points of every ship.
+ * <p>
+ * Snapshots can be written one after another into the same channel and read back in the same order.
+ * One codec reuses its buffer for all snapshots, so it must not be shared between threads.
+ */
+public class SnapshotCodec {
+    // "BSSN"
+    private static final int MAGIC = 0x4253534E;
+    private static final short VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    // Больше буферы не выделяются, чтобы размер с округлением до степени двойки помещался в int
+    static final int MAX_BUFFER_BYTES = 1 << 30;
+    // Размер поля, количества кораблей каждого типа и торпед
+    static final int CONFIG_BYTES = 4 * 2 + 4 * ShipType.values().length + 4;
+    private static final int SHIP_BYTES = 11;
+    static final int FLAG_RECOVERY = 1;
+    private static final int FLAG_PLACED = 2;
+    private static final ShipType[] types = ShipType.values();
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 12);
+
+    /**
+     * Writing the snapshot of the game into the file, the file is overwritten.
+     *
+     * @param engine the game.
+     * @param path   the file.
+     * @throws IOException throws if the file can't be written.
+     */
+    public void save(GameEngine engine, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            save(engine, channel);
+        }
+    }
+
+    /**
+     * Reading the game from the file written by save.
+     *
+     * @param path the file.
+     * @return the restored game.
+     * @throws Exception throws if the file can't be read or it is not a correct snapshot.
+     */
+    public GameEngine load(Path path) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            GameEngine engine = load(channel);
+            if (engine == null) {
+                throw new Exception("Incorrect snapshot file");
+            }
+            return engine;
+        }
+    }
+
+    /**
+     * Writing the snapshot of the game into the channel.
+     *
+     * @param engine  the game.
+     * @param channel where to write.
+     * @throws IOException throws if the channel can't be written.
+     */
+    public void save(GameEngine engine, WritableByteChannel channel) throws IOException {
+        ByteBuffer buf = encode(engine);
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * Writing the snapshot of the game into a new array.
+     *
+     * @param engine the game.
+     * @return the snapshot, it can be read back by load(ByteBuffer.wrap(bytes)).
+     */
+    public byte[] toByteArray(GameEngine engine) {
+        ByteBuffer buf = encode(engine);
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writing the snapshot into the reused buffer.
+     *
+     * @return the buffer ready to be read.
+     */
+    private ByteBuffer encode(GameEngine engine) {
+        BattleField battleField = engine.getBattleField();
+        Fleet fleet = engine.getFleet();
+        Ship[] ships = fleet.isPlaced() ? fleet.getShips() : new Ship[0];
+        int bodyBytes = CONFIG_BYTES + 8 + 4 * 4
+                + 8 * battleField.getSavedWords() + 4 + SHIP_BYTES * ships.length;
+        ByteBuffer buf = buffer = prepare(buffer, HEADER_BYTES + bodyBytes);
+
+        int flags = (engine.isRecoveryModEnabled() ? FLAG_RECOVERY : 0) | (fleet.isPlaced() ? FLAG_PLACED : 0);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) flags).putInt(bodyBytes);
+
+        putConfig(buf, engine.getConfig());
+        buf.putLong(engine.getSeed());
+        buf.putInt(engine.getAttackCount());
+        buf.putInt(fleet.getTorpedoesAmount());
+        buf.putInt(indexOf(ships, engine.getLastAttackedShip()));
+        buf.putInt(battleField.getSavedWords());
+        // Плоскости пишутся целыми словами через представление буфера как long
+        battleField.savePlanes(buf.asLongBuffer());
+        buf.position(buf.position() + 8 * battleField.getSavedWords());
+
+        buf.putInt(ships.length);
+        for (Ship sh : ships) {
+            buf.put((byte) sh.getType().ordinal())
+                    .putInt(sh.getX())
+                    .putInt(sh.getY())
+                    .put((byte) (sh.isHorizontal() ? 1 : 0))
+                    .put((byte) sh.getHeadPoints());
+        }
+        return buf.flip();
+    }
+
+    /**
+     * Reading the next game from the channel.
+     *
+     * @param channel where to read from.
+     * @return the restored game or null if the channel has ended before the snapshot.
+     * @throws Exception throws if the channel can't be read or the data is not a correct snapshot.
+     */
+    public GameEngine load(ReadableByteChannel channel) throws Exception {
+        ByteBuffer buf = buffer = prepare(buffer, HEADER_BYTES);
+        buf.limit(HEADER_BYTES);
+        if (!readFully(channel, buf)) {
+            return null;
+        }
+        int bodyBytes = buf.getInt(8);
+        if (buf.getInt(0) != MAGIC || bodyBytes < 0 || bodyBytes > MAX_BUFFER_BYTES - HEADER_BYTES) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        // Испорченная длина не должна заставлять выделять память больше самого файла
+        if (bodyBytes > getRemainingBytes(channel)) {
+            throw new Exception("Unexpected end of snapshot");
+        }
+        if (buffer.capacity() < HEADER_BYTES + bodyBytes) {
+            // Заголовок переносится в новый буфер
+            buffer = prepare(buffer, HEADER_BYTES + bodyBytes);
+            buf = buffer.put(buf.flip());
+        }
+        buf.limit(HEADER_BYTES + bodyBytes);
+        if (!readFully(channel, buf)) {
+            throw new Exception("Unexpected end of snapshot");
+        }
+        return load(buf.flip());
+    }
+
+    /**
+     * Reading the next game from the buffer, the position of the buffer moves after the snapshot.
+     *
+     * @param src where to read from.
+     * @return the restored game.
+     * @throws Exception throws if the data is not a correct snapshot.
+     */
+    public GameEngine load(ByteBuffer src) throws Exception {
+        if (src.remaining() < HEADER_BYTES || src.getInt() != MAGIC) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        if (src.getShort() != VERSION) {
+            throw new Exception("Unsupported snapshot version");
+        }
+        int flags = src.getShort();
+        int bodyBytes = src.getInt();
+        if (bodyBytes < 0 || bodyBytes > src.remaining()) {
+            throw new Exception("Unexpected end of snapshot");
+        }
+        ByteBuffer body = src.slice().limit(bodyBytes);
+        src.position(src.position() + bodyBytes);
+        try {
+            return decode(body, flags);
+        } catch (RuntimeException ex) {
+            throw new Exception("Incorrect snapshot file");
+        }
+    }
+
+    private GameEngine decode(ByteBuffer buf, int flags) throws Exception {
+        GameConfig config = getConfig(buf, (flags & FLAG_RECOVERY) != 0);
+        int sizeX = config.sizeX;
+        int sizeY = config.sizeY;
+        GameEngine engine = new GameEngine(config, buf.getLong());
+        int attackCount = buf.getInt();
+        int torpedoesAmount = buf.getInt();
+        int lastAttacked = buf.getInt();
+
+        BattleField battleField = engine.getBattleField();
+        int savedWords = buf.getInt();
+        if (savedWords < 0 || savedWords > buf.remaining() / 8) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        // Количество слов плоскостей с чанками зависит от поля, поэтому должны быть прочитаны ровно все
+        LongBuffer words = buf.asLongBuffer().limit(savedWords);
+        try {
+            battleField.loadPlanes(words);
+        } catch (Exception ex) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        if (words.hasRemaining()) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        buf.position(buf.position() + 8 * savedWords);
+
+        Ship[] ships = new Ship[buf.getInt()];
+        for (int i = 0; i < ships.length; i++) {
+            ships[i] = readShip(buf, sizeX, sizeY);
+        }
+        if ((flags & FLAG_PLACED) != 0) {
+            engine.getFleet().restore(ships, torpedoesAmount);
+        } else if (ships.length != 0) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        if (lastAttacked < -1 || lastAttacked >= ships.length) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        engine.restoreProgress(attackCount, lastAttacked < 0 ? null : ships[lastAttacked]);
+        return engine;
+    }
+
+    private static Ship readShip(ByteBuffer buf, int sizeX, int sizeY) throws Exception {
+        int type = buf.get();
+        int x = buf.getInt();
+        int y = buf.getInt();
+        boolean horizontal = buf.get() != 0;
+        int headPoints = buf.get();
+        if (type < 0 || type >= types.length) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        Ship sh = new Ship(types[type]);
+        sh.setPosition(x, y, horizontal);
+        int last = sh.getSize() - 1;
+        if (x < 0 || y < 0 || sh.getCellX(last) >= sizeX || sh.getCellY(last) >= sizeY
+                || headPoints < 0 || headPoints > sh.getSize()) {
+            throw new Exception("Incorrect snapshot file");
+        }
+        sh.setHeadPoints(headPoints);
+        return sh;
+    }
+
+    /**
+     * Writing the field size, amounts of ships and torpedoes, it takes CONFIG_BYTES.
+     */
+    static void putConfig(ByteBuffer buf, GameConfig config) {
+        buf.putInt(config.sizeX).putInt(config.sizeY);
+        for (ShipType type : types) {
+            buf.putInt(config.fleetConfig.getAmount(type));
+        }
+        buf.putInt(config.fleetConfig.getTorpedoesAmount());
+    }
+
+    /**
+     * Reading the configuration written by putConfig.
+     *
+     * @throws Exception throws if the configuration is not correct.
+     */
+    static GameConfig getConfig(ByteBuffer buf, boolean isRecoveryModEnabled) throws Exception {
+        int sizeX = buf.getInt();
+        int sizeY = buf.getInt();
+        int[] amounts = new int[types.length];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = buf.getInt();
+        }
+        FleetConfig fleetConfig = new FleetConfig(amounts, buf.getInt());
+        return new GameConfig(sizeX, sizeY, fleetConfig, isRecoveryModEnabled);
+    }
+
+    /**
+     * Getting the cleared reused buffer or a new one if the reused buffer is smaller than the capacity.
+     * When a new buffer is returned, the reused one isn't touched, so the caller may copy from it.
+     *
+     * @throws IllegalArgumentException throws if the capacity is bigger than MAX_BUFFER_BYTES,
+     *                                  lengths read from files must be checked before.
+     */
+    static ByteBuffer prepare(ByteBuffer buffer, int capacity) {
+        if (capacity > MAX_BUFFER_BYTES) {
+            throw new IllegalArgumentException("Buffer of " + capacity + " bytes is too big");
+        }
+        if (buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(capacity - 1) << 1);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Getting the amount of bytes left in the channel after its position.
+     *
+     * @return the amount of bytes or Long.MAX_VALUE if the channel isn't a file.
+     */
+    static long getRemainingBytes(ReadableByteChannel channel) throws IOException {
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel file = (SeekableByteChannel) channel;
+            return file.size() - file.position();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Reading until the buffer is full.
+     *
+     * @return false if the channel has ended before the first byte.
+     * @throws IOException throws if the channel has ended in the middle.
+     */
+    static boolean readFully(ReadableByteChannel channel, ByteBuffer buf) throws IOException {
+        boolean empty = true;
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                if (empty) {
+                    return false;
+                }
+                throw new IOException("Unexpected end of snapshot");
+            }
+            empty = false;
+        }
+        return true;
+    }
+
+    private static int indexOf(Ship[] ships, Ship sh) {
+        for (int i = 0; i < ships.length; i++) {
+            if (ships[i] == sh) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,143 @@
+package battleship.utils;
+
+import java.util.Arrays;
+
+/**
+ * Splitter of a command line into words separated by spaces and tabs.
+ * Words are kept as bounds in the line, so nothing is allocated while a line is split,
+ * compared with a word or parsed as a number, and malformed numbers don't throw exceptions.
+ * The tokenizer is reused for every line, its arrays grow only for lines with more words than before.
+ */
+public final class CommandTokenizer {
+    // Любое значение вне диапазона int
+    private static final long NOT_INT = Long.MIN_VALUE;
+
+    private CharSequence line = "";
+    // Слово i занимает символы line[starts[i]..ends[i])
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+
+    /**
+     * Splitting the line, the words of the previous line are forgotten.
+     * The line must not change while its words are used.
+     *
+     * @param line the command line.
+     */
+    public void reset(CharSequence line) {
+        this.line = line;
+        count = 0;
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            while (i < length && isSeparator(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                return;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                ends = Arrays.copyOf(ends, 2 * count);
+            }
+            starts[count] = i;
+            while (i < length && !isSeparator(line.charAt(i))) {
+                i++;
+            }
+            ends[count++] = i;
+        }
+    }
+
+    /**
+     * Getting an amount of words of the line.
+     *
+     * @return the amount of words.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Check if the word is equal to the given one.
+     *
+     * @param word number of the word, words out of the line are equal to nothing.
+     * @param text the text to compare with.
+     * @return true if the word is the text.
+     */
+    public boolean is(int word, String text) {
+        if (word < 0 || word >= count || ends[word] - starts[word] != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(starts[word] + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the word is a decimal int, optionally with a sign.
+     *
+     * @param word number of the word.
+     * @return true if getInt returns the value of the word.
+     */
+    public boolean isInt(int word) {
+        return word >= 0 && word < count && parse(word) != NOT_INT;
+    }
+
+    /**
+     * Getting the word as a decimal int.
+     *
+     * @param word   number of the word.
+     * @param absent what to return if the word isn't an int or there is no such word.
+     * @return the value or absent.
+     */
+    public int getInt(int word, int absent) {
+        if (word < 0 || word >= count) {
+            return absent;
+        }
+        long value = parse(word);
+        return value == NOT_INT ? absent : (int) value;
+    }
+
+    /**
+     * Getting the word as a string, it is allocated, so it's used only for rare commands.
+     *
+     * @param word number of the word.
+     * @return the word or null if there is no such word.
+     */
+    public String getString(int word) {
+        return word >= 0 && word < count ? line.subSequence(starts[word], ends[word]).toString() : null;
+    }
+
+    private long parse(int word) {
+        int i = starts[word];
+        int end = ends[word];
+        boolean isNegative = line.charAt(i) == '-';
+        if (isNegative || line.charAt(i) == '+') {
+            i++;
+        }
+        if (i == end) {
+            return NOT_INT;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_INT;
+            }
+            value = value * 10 + (c - '0');
+            // -2147483648 еще помещается в int
+            if (value > Integer.MAX_VALUE + 1L) {
+                return NOT_INT;
+            }
+        }
+        value = isNegative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_INT : value;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
@@ -0,0 +1,112 @@
+package battleship.utils;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-negative long keys to int values without boxing.
+ * Keys lie in one array with linear probing and the table is at most half full.
+ * Entries are never removed one by one, only all together.
+ */
+public final class LongIntMap {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * LongIntMap constructor.
+     *
+     * @param expected amount of entries the map holds without growing.
+     */
+    public LongIntMap(int expected) {
+        // Степень двойки, не меньшая удвоенного количества элементов
+        int capacity = Integer.highestOneBit(Math.max(2 * expected - 1, 7)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Getting the value of the key.
+     *
+     * @param key    the key, not negative.
+     * @param absent what to return if there is no such key.
+     * @return the value or absent.
+     */
+    public int get(long key, int absent) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return absent;
+    }
+
+    /**
+     * Setting the value of the key.
+     *
+     * @param key   the key, not negative.
+     * @param value the value.
+     */
+    public void put(long key, int value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Getting the amount of keys.
+     *
+     * @return the amount of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removing all keys, the table keeps its capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        // Соседние ключи разбрасываются по таблице умножением Фибоначчи
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}